@@ -9,6 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ChessBoard {
+    private static final Metrics.Counter MOVE_GENERATION = Metrics.counter("board.getLegalMoves");
+    private static final Metrics.Counter LEGALITY_CHECKS = Metrics.counter("board.isMoveSafe");
+    private static final Metrics.Counter ATTACK_CHECKS = Metrics.counter("board.isSquareAttacked");
+
     // Board uses 0-indexed rows and columns.
     // row 0 is the top (Black's back rank) and row 7 is the bottom (White's back rank)
     private ChessPiece[][] board;
@@ -21,11 +25,59 @@ public class ChessBoard {
     // When a pawn makes a two-square move, the square it “skipped” becomes available for en passant.
     private int enPassantTargetRow = -1, enPassantTargetCol = -1;
 
+    // Side to move and the FEN move counters, advanced by every executed move.
+    private Color sideToMove = Color.WHITE;
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+
+    // Bit (row * 8 + col) is set for every square whose contents changed since the UI last drew it.
+    private long dirtySquares = -1L;
+
+    // Snapshot of the current position, made on first request and dropped by the next change.
+    private Position snapshot;
+
     public ChessBoard() {
         board = new ChessPiece[8][8];
         setupBoard();
     }
 
+    // Copies another board's position and state. Pieces are immutable, so they are shared.
+    public ChessBoard(ChessBoard other) {
+        board = other.copyBoard();
+        whiteKingMoved = other.whiteKingMoved;
+        whiteKingRookMoved = other.whiteKingRookMoved;
+        whiteQueenRookMoved = other.whiteQueenRookMoved;
+        blackKingMoved = other.blackKingMoved;
+        blackKingRookMoved = other.blackKingRookMoved;
+        blackQueenRookMoved = other.blackQueenRookMoved;
+        enPassantTargetRow = other.enPassantTargetRow;
+        enPassantTargetCol = other.enPassantTargetCol;
+        sideToMove = other.sideToMove;
+        halfmoveClock = other.halfmoveClock;
+        fullmoveNumber = other.fullmoveNumber;
+        snapshot = other.snapshot;
+    }
+
+    // A board set up from a snapshot, to play on from it.
+    public ChessBoard(Position position) {
+        board = new ChessPiece[8][8];
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                board[row][col] = position.getPiece(row, col);
+            }
+        }
+        int rights = position.getCastlingRights();
+        setCastlingRights((rights & Position.WHITE_KING_SIDE) != 0, (rights & Position.WHITE_QUEEN_SIDE) != 0,
+                (rights & Position.BLACK_KING_SIDE) != 0, (rights & Position.BLACK_QUEEN_SIDE) != 0);
+        int ep = position.getEnPassantSquare();
+        enPassantTargetRow = ep == -1 ? -1 : ep / 8;
+        enPassantTargetCol = ep == -1 ? -1 : ep % 8;
+        sideToMove = position.getSideToMove();
+        halfmoveClock = position.getHalfmoveClock();
+        fullmoveNumber = position.getFullmoveNumber();
+        snapshot = position;
+    }
+
     public void setupBoard() {
         // Clear board
         for (int i = 0; i < 8; i++) {
@@ -63,6 +115,185 @@ public class ChessBoard {
         whiteKingMoved = whiteKingRookMoved = whiteQueenRookMoved = false;
         blackKingMoved = blackKingRookMoved = blackQueenRookMoved = false;
         enPassantTargetRow = enPassantTargetCol = -1;
+        sideToMove = Color.WHITE;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        dirtySquares = -1L;
+        snapshot = null;
+    }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    // The number of the move about to be played; starts at 1 and goes up after each Black move.
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Returns the squares changed since the last call as a bitmask (bit row * 8 + col) and clears it.
+     * Every square is reported after the board is created, set up or loaded from FEN.
+     */
+    public long drainDirtySquares() {
+        long dirty = dirtySquares;
+        dirtySquares = 0;
+        return dirty;
+    }
+
+    private void markDirty(int row, int col) {
+        dirtySquares |= 1L << (row * 8 + col);
+    }
+
+    /**
+     * Returns true if either side may still castle: its king and that rook have not moved
+     * and are both on their starting squares.
+     */
+    public boolean hasCastlingRights() {
+        return castlingRights() != 0;
+    }
+
+    // The Position castling flags still usable: the king and that rook are unmoved and on their home squares.
+    private int castlingRights() {
+        boolean whiteKing = !whiteKingMoved && isPiece(7, 4, PieceType.KING, Color.WHITE);
+        boolean blackKing = !blackKingMoved && isPiece(0, 4, PieceType.KING, Color.BLACK);
+        int rights = 0;
+        if (whiteKing && !whiteKingRookMoved && isPiece(7, 7, PieceType.ROOK, Color.WHITE)) {
+            rights |= Position.WHITE_KING_SIDE;
+        }
+        if (whiteKing && !whiteQueenRookMoved && isPiece(7, 0, PieceType.ROOK, Color.WHITE)) {
+            rights |= Position.WHITE_QUEEN_SIDE;
+        }
+        if (blackKing && !blackKingRookMoved && isPiece(0, 7, PieceType.ROOK, Color.BLACK)) {
+            rights |= Position.BLACK_KING_SIDE;
+        }
+        if (blackKing && !blackQueenRookMoved && isPiece(0, 0, PieceType.ROOK, Color.BLACK)) {
+            rights |= Position.BLACK_QUEEN_SIDE;
+        }
+        return rights;
+    }
+
+    private boolean isPiece(int row, int col, PieceType type, Color color) {
+        ChessPiece piece = board[row][col];
+        return piece != null && piece.getType() == type && piece.getColor() == color;
+    }
+
+    /**
+     * Returns an immutable snapshot of the current position, for readers on other threads or for
+     * keeping. The same snapshot is returned until the board changes, so asking again is cheap.
+     */
+    public Position snapshot() {
+        if (snapshot == null) {
+            int rights = castlingRights();
+            int ep = enPassantTargetRow == -1 ? -1 : enPassantTargetRow * 8 + enPassantTargetCol;
+            snapshot = new Position(board, sideToMove, rights, ep, halfmoveClock, fullmoveNumber);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a 64-bit hash of the position: pieces, side to move, castling rights and, when a pawn
+     * could capture en passant, the en passant file.
+     * Equal positions always get equal keys.
+     */
+    public long zobristKey() {
+        return snapshot().zobristKey();
+    }
+
+    /**
+     * Returns the position in Forsyth-Edwards Notation.
+     */
+    public String toFen() {
+        return snapshot().toFen();
+    }
+
+    /**
+     * Replaces the current position with the one described by a FEN string.
+     * The move counters are optional. Throws IllegalArgumentException if the FEN is malformed;
+     * the board is left unchanged in that case.
+     */
+    public void loadFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN: " + fen);
+        }
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != 8) {
+            throw new IllegalArgumentException("Invalid FEN piece placement: " + fields[0]);
+        }
+        ChessPiece[][] newBoard = new ChessPiece[8][8];
+        for (int row = 0; row < 8; row++) {
+            int col = 0;
+            for (char c : ranks[row].toCharArray()) {
+                if (c >= '1' && c <= '8') {
+                    col += c - '0';
+                } else if (col < 8) {
+                    newBoard[row][col++] = fenPiece(c);
+                } else {
+                    col++;
+                }
+            }
+            if (col != 8) {
+                throw new IllegalArgumentException("Invalid FEN rank: " + ranks[row]);
+            }
+        }
+        Color side = switch (fields[1]) {
+            case "w" -> Color.WHITE;
+            case "b" -> Color.BLACK;
+            default -> throw new IllegalArgumentException("Invalid FEN side to move: " + fields[1]);
+        };
+        int epRow = -1, epCol = -1;
+        if (!fields[3].equals("-")) {
+            if (!fields[3].matches("[a-h][36]")) {
+                throw new IllegalArgumentException("Invalid FEN en passant square: " + fields[3]);
+            }
+            epCol = fields[3].charAt(0) - 'a';
+            epRow = 8 - (fields[3].charAt(1) - '0');
+        }
+        int halfmove, fullmove;
+        try {
+            halfmove = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+            fullmove = fields.length > 5 ? Integer.parseInt(fields[5]) : 1;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid FEN move counters: " + fen);
+        }
+
+        board = newBoard;
+        sideToMove = side;
+        String castling = fields[2];
+        setCastlingRights(castling.indexOf('K') >= 0, castling.indexOf('Q') >= 0,
+                castling.indexOf('k') >= 0, castling.indexOf('q') >= 0);
+        enPassantTargetRow = epRow;
+        enPassantTargetCol = epCol;
+        halfmoveClock = halfmove;
+        fullmoveNumber = fullmove;
+        dirtySquares = -1L;
+        snapshot = null;
+    }
+
+    // Castling rights are kept as "has moved" flags, so a missing right marks the rook as moved.
+    private void setCastlingRights(boolean whiteKingSide, boolean whiteQueenSide,
+                                   boolean blackKingSide, boolean blackQueenSide) {
+        whiteKingMoved = !whiteKingSide && !whiteQueenSide;
+        whiteKingRookMoved = !whiteKingSide;
+        whiteQueenRookMoved = !whiteQueenSide;
+        blackKingMoved = !blackKingSide && !blackQueenSide;
+        blackKingRookMoved = !blackKingSide;
+        blackQueenRookMoved = !blackQueenSide;
+    }
+
+    private static ChessPiece fenPiece(char c) {
+        Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+        PieceType type = switch (Character.toLowerCase(c)) {
+            case 'p' -> PieceType.PAWN;
+            case 'n' -> PieceType.KNIGHT;
+            case 'b' -> PieceType.BISHOP;
+            case 'r' -> PieceType.ROOK;
+            case 'q' -> PieceType.QUEEN;
+            case 'k' -> PieceType.KING;
+            default -> throw new IllegalArgumentException("Invalid FEN piece: " + c);
+        };
+        return new ChessPiece(type, color);
     }
 
     public ChessPiece getPiece(int row, int col) {
@@ -78,6 +309,7 @@ public class ChessBoard {
 
     // Returns a list of legal moves (each as int[]{endRow, endCol}) for a piece at (row, col)
     public List<int[]> getLegalMoves(int row, int col) {
+        MOVE_GENERATION.increment();
         List<int[]> moves = new ArrayList<>();
         ChessPiece piece = getPiece(row, col);
         if (piece == null) return moves;
@@ -222,6 +454,7 @@ public class ChessBoard {
 
     // Determines whether moving a piece from (sRow, sCol) to (eRow, eCol) leaves the king safe.
     private boolean isMoveSafe(int sRow, int sCol, int eRow, int eCol, Color turn) {
+        LEGALITY_CHECKS.increment();
         // Save board state and flags.
         ChessPiece[][] backup = copyBoard();
         boolean bWhiteKingMoved = whiteKingMoved;
@@ -234,7 +467,7 @@ public class ChessBoard {
         int backupEPTCol = enPassantTargetCol;
 
         // Make the move
-        makeMove(sRow, sCol, eRow, eCol, turn, true);
+        makeMove(sRow, sCol, eRow, eCol, turn, PieceType.QUEEN, true);
         boolean safe = !isKingInCheck(turn);
 
         // Restore state.
@@ -282,6 +515,7 @@ public class ChessBoard {
 
     // Checks if a square is attacked by any piece of the given attackerColor.
     public boolean isSquareAttacked(int row, int col, Color attackerColor) {
+        ATTACK_CHECKS.increment();
         // For every piece of attackerColor, if it can move (pseudo‑legal) to (row,col), then the square is attacked.
         for (int i = 0; i < 8; i++) {
             for (int j = 0; j < 8; j++) {
@@ -373,11 +607,53 @@ public class ChessBoard {
         return false;
     }
 
+    /**
+     * Returns true if the given side has at least one legal move.
+     */
+    public boolean hasLegalMoves(Color turn) {
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                ChessPiece piece = board[i][j];
+                if (piece != null && piece.getColor() == turn && !getLegalMoves(i, j).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * Attempts to move a piece from (sRow, sCol) to (eRow, eCol) for the given turn.
-     * Returns true if the move is legal and executed.
+     * Returns true if the move is legal and executed. Pawns promote to a queen.
      */
     public boolean movePiece(int sRow, int sCol, int eRow, int eCol, Color turn) {
+        return movePiece(sRow, sCol, eRow, eCol, turn, PieceType.QUEEN);
+    }
+
+    /**
+     * Same as {@link #movePiece(int, int, int, int, Color)}, with the piece a pawn promotes to.
+     * Returns false for any promotion other than a queen, rook, bishop or knight, even on a move
+     * that does not promote.
+     */
+    public boolean movePiece(int sRow, int sCol, int eRow, int eCol, Color turn, PieceType promotion) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        boolean legal = tryMove(sRow, sCol, eRow, eCol, turn, promotion);
+        if (event.shouldCommit()) {
+            event.from = San.square(sRow, sCol);
+            event.to = San.square(eRow, eCol);
+            event.legal = legal;
+            event.commit();
+        }
+        return legal;
+    }
+
+    private boolean tryMove(int sRow, int sCol, int eRow, int eCol, Color turn, PieceType promotion) {
+        if (promotion != PieceType.QUEEN && promotion != PieceType.ROOK
+                && promotion != PieceType.BISHOP && promotion != PieceType.KNIGHT) {
+            System.out.println("Invalid promotion piece: " + promotion);
+            return false;
+        }
         ChessPiece piece = getPiece(sRow, sCol);
         if (piece == null || piece.getColor() != turn) {
             System.out.println("No valid piece at the starting square.");
@@ -396,7 +672,12 @@ public class ChessBoard {
             return false;
         }
         // Execute the move.
-        makeMove(sRow, sCol, eRow, eCol, turn, false);
+        boolean resetsClock = piece.getType() == PieceType.PAWN || getPiece(eRow, eCol) != null;
+        makeMove(sRow, sCol, eRow, eCol, turn, promotion, false);
+        halfmoveClock = resetsClock ? 0 : halfmoveClock + 1;
+        if (turn == Color.BLACK) fullmoveNumber++;
+        sideToMove = (turn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        snapshot = null;
         return true;
     }
 
@@ -404,13 +685,23 @@ public class ChessBoard {
      * Makes a move from (sRow,sCol) to (eRow,eCol) without validating king safety.
      * If simulate is true, the state will not be permanently updated.
      */
-    private void makeMove(int sRow, int sCol, int eRow, int eCol, Color turn, boolean simulate) {
+    private void makeMove(int sRow, int sCol, int eRow, int eCol, Color turn, PieceType promotion, boolean simulate) {
         ChessPiece piece = getPiece(sRow, sCol);
         // Clear any previous en passant target.
         enPassantTargetRow = enPassantTargetCol = -1;
 
+        if (!simulate) {
+            markDirty(sRow, sCol);
+            markDirty(eRow, eCol);
+        }
+
         // Handle castling if the king moves two squares.
         if (piece.getType() == PieceType.KING && Math.abs(eCol - sCol) == 2) {
+            if (!simulate) {
+                // Both rook squares of the castling side change.
+                markDirty(eRow, eCol > sCol ? 7 : 0);
+                markDirty(eRow, eCol > sCol ? eCol - 1 : eCol + 1);
+            }
             // Kingside castling
             if (eCol > sCol) {
                 // Move the rook.
@@ -430,17 +721,18 @@ public class ChessBoard {
         if (piece.getType() == PieceType.PAWN && sCol != eCol && getPiece(eRow, eCol) == null) {
             // Capturing en passant: remove the pawn behind the target square.
             board[sRow][eCol] = null;
+            if (!simulate) markDirty(sRow, eCol);
         }
 
         // Move the piece.
         board[eRow][eCol] = piece;
         board[sRow][sCol] = null;
 
-        // Pawn promotion (auto promote to queen)
+        // Pawn promotion (to a queen unless another piece was asked for)
         if (piece.getType() == PieceType.PAWN) {
             if ((piece.getColor() == Color.WHITE && eRow == 0) ||
                     (piece.getColor() == Color.BLACK && eRow == 7)) {
-                board[eRow][eCol] = new ChessPiece(PieceType.QUEEN, piece.getColor());
+                board[eRow][eCol] = new ChessPiece(promotion, piece.getColor());
             }
             // Set en passant target if pawn moved two squares.
             if (Math.abs(eRow - sRow) == 2) {
@@ -1,8 +1,8 @@
 package com.example.projectchess.backend;
 
 public class ChessPiece {
-    private PieceType type;
-    private Color color;
+    private final PieceType type;
+    private final Color color;
 
     public ChessPiece(PieceType type, Color color) {
         this.type = type;
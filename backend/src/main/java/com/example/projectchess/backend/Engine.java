@@ -0,0 +1,918 @@
+package com.example.projectchess.backend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Alpha-beta search for analysing positions. Searches by iterative deepening until the thread
+ * is interrupted, reporting depth, score, principal variation and speed to a {@link Listener}.
+ *
+ * The search runs on its own mailbox board (one int per square) with make/unmake instead of
+ * copying {@link ChessBoard}s, and keeps a transposition table between calls, so analysing
+ * consecutive positions of one game reuses earlier work. Book positions are reported from the
+ * opening book first; positions with few enough pieces are scored from the tablebases.
+ *
+ * An engine is not thread-safe: use each instance from one thread at a time.
+ */
+public class Engine {
+    public static final int MAX_DEPTH = 64;
+    static final int MATE = 30000;
+    private static final int INFINITY = 32000;
+    private static final int MAX_PLY = 128;
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+    // Progress is reported at most this often while a depth is being searched.
+    private static final long PROGRESS_INTERVAL_NANOS = 250_000_000L;
+    private static final Metrics.Counter NODES = Metrics.counter("engine.nodes");
+
+    // Piece codes on the engine's board: positive for White, negative for Black, 0 for empty.
+    private static final int PAWN = 1, KNIGHT = 2, BISHOP = 3, ROOK = 4, QUEEN = 5, KING = 6;
+    private static final int WHITE = 1, BLACK = -1;
+    private static final PieceType[] TYPES = {null, PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP,
+            PieceType.ROOK, PieceType.QUEEN, PieceType.KING};
+    private static final int[] VALUE = {0, 100, 320, 330, 500, 900, 0};
+
+    // Moves are ints: from | to << 6 | promotion piece << 12 | flag << 15.
+    private static final int FLAG_DOUBLE_PUSH = 1, FLAG_EN_PASSANT = 2, FLAG_CASTLE = 3;
+
+    // Castling right bits: white king side, white queen side, black king side, black queen side.
+    private static final int[] CASTLE_MASK = new int[64];
+    private static final long[] CASTLE_KEYS = new long[16];
+
+    // Target squares for knight and king moves, and the squares along each ray from a square:
+    // directions 0-3 are straight (rook), 4-7 diagonal (bishop).
+    private static final int[][] KNIGHT_TARGETS = new int[64][];
+    private static final int[][] KING_TARGETS = new int[64][];
+    private static final int[][][] RAYS = new int[8][64][];
+
+    // Piece-square tables from White's point of view, rank 8 first, so they index by row * 8 + col.
+    // Black's pieces use the square mirrored vertically (square ^ 56).
+    private static final int[][] PIECE_SQUARE = {
+            null,
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0},
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50},
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20},
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0},
+            {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20}
+    };
+    private static final int[] KING_MIDDLEGAME = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+    private static final int[] KING_ENDGAME = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50};
+    // Below this much non-pawn material (both sides together) kings head for the centre.
+    private static final int ENDGAME_MATERIAL = 1600;
+
+    static {
+        int[][] directions = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+        int[][] knightSteps = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq / 8, col = sq % 8;
+            KNIGHT_TARGETS[sq] = targets(row, col, knightSteps);
+            KING_TARGETS[sq] = targets(row, col, directions);
+            for (int d = 0; d < 8; d++) {
+                List<Integer> ray = new ArrayList<>();
+                for (int r = row + directions[d][0], c = col + directions[d][1];
+                     r >= 0 && r < 8 && c >= 0 && c < 8; r += directions[d][0], c += directions[d][1]) {
+                    ray.add(r * 8 + c);
+                }
+                RAYS[d][sq] = ray.stream().mapToInt(Integer::intValue).toArray();
+            }
+            CASTLE_MASK[sq] = 15;
+        }
+        CASTLE_MASK[60] &= ~3;  // e1
+        CASTLE_MASK[63] &= ~1;  // h1
+        CASTLE_MASK[56] &= ~2;  // a1
+        CASTLE_MASK[4] &= ~12;  // e8
+        CASTLE_MASK[7] &= ~4;   // h8
+        CASTLE_MASK[0] &= ~8;   // a8
+        for (int rights = 0; rights < 16; rights++) {
+            for (int i = 0; i < 4; i++) {
+                if ((rights & 1 << i) != 0) CASTLE_KEYS[rights] ^= Zobrist.CASTLING[i];
+            }
+        }
+    }
+
+    private static int[] targets(int row, int col, int[][] steps) {
+        List<Integer> targets = new ArrayList<>();
+        for (int[] step : steps) {
+            int r = row + step[0], c = col + step[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) targets.add(r * 8 + c);
+        }
+        return targets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Receives search results. Called on the searching thread.
+     */
+    public interface Listener {
+        void update(Info info);
+    }
+
+    /**
+     * One report from a search. Scores are in centipawns from White's point of view.
+     */
+    public static final class Info {
+        private final int depth;
+        private final int score;
+        private final int mateIn;
+        private final List<String> pv;
+        private final long nodes;
+        private final long nodesPerSecond;
+        private final boolean book;
+
+        Info(int depth, int score, int mateIn, List<String> pv, long nodes, long nodesPerSecond, boolean book) {
+            this.depth = depth;
+            this.score = score;
+            this.mateIn = mateIn;
+            this.pv = pv;
+            this.nodes = nodes;
+            this.nodesPerSecond = nodesPerSecond;
+            this.book = book;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        // True if the score is a forced mate rather than an evaluation.
+        public boolean isMate() {
+            return Math.abs(score) > MATE - MAX_PLY;
+        }
+
+        // Moves until mate, positive if White mates and negative if Black does; 0 if no mate was
+        // found or the side to move is already mated.
+        public int getMateIn() {
+            return mateIn;
+        }
+
+        // The expected line in SAN; for a book position, the book moves instead, most played first.
+        public List<String> getPv() {
+            return pv;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getNodesPerSecond() {
+            return nodesPerSecond;
+        }
+
+        public boolean isBook() {
+            return book;
+        }
+
+        // "+0.35", "-1.20", "#3" or "#-3".
+        public String getScoreText() {
+            if (isMate()) return "#" + mateIn;
+            return String.format("%+.2f", score / 100.0);
+        }
+
+        @Override
+        public String toString() {
+            if (book) return "book " + String.join(" ", pv);
+            return "depth " + depth + " " + getScoreText() + " " + String.join(" ", pv)
+                    + " (" + nodes + " nodes, " + nodesPerSecond + " n/s)";
+        }
+    }
+
+    // Thrown out of the search when it is cancelled; one shared instance, with no stack trace to fill in.
+    private static final class SearchStopped extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SearchStopped() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final SearchStopped STOPPED = new SearchStopped();
+
+    // Transposition table: the full key per slot, and move | (score + 32768) << 18 | depth << 34 | bound << 42.
+    private static final int TABLE_BITS = 20;
+    private static final int BOUND_EXACT = 0, BOUND_LOWER = 1, BOUND_UPPER = 2;
+    private final long[] tableKeys = new long[1 << TABLE_BITS];
+    private final long[] tableData = new long[1 << TABLE_BITS];
+
+    private final OpeningBook book;
+    private final Tablebase tablebase;
+
+    // The position being searched.
+    private final int[] squares = new int[64];
+    private final int[] kings = new int[2]; // by side index: 0 White, 1 Black
+    private int side;
+    private int castling;
+    private int enPassant;
+    private int halfmove;
+    private int pieceCount;
+    private long key;
+
+    // State saved by makeMove, indexed by historyLength; keyHistory holds every position since the root.
+    private final long[] keyHistory = new long[MAX_PLY + 2];
+    private final int[] undoCaptured = new int[MAX_PLY + 2];
+    private final int[] undoCastling = new int[MAX_PLY + 2];
+    private final int[] undoEnPassant = new int[MAX_PLY + 2];
+    private final int[] undoHalfmove = new int[MAX_PLY + 2];
+    private int historyLength;
+
+    private final int[][] moveLists = new int[MAX_PLY][256];
+    private final int[][] moveScores = new int[MAX_PLY][256];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    private Position root;
+    private Listener listener;
+    private long nodes;
+    private long startNanos, lastReportNanos;
+    private long deadlineNanos = Long.MAX_VALUE;
+    private Info lastInfo;
+
+    /**
+     * Either argument may be null to search without a book or tablebases.
+     */
+    public Engine(OpeningBook book, Tablebase tablebase) {
+        this.book = book;
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Analyses a position until the calling thread is interrupted or MAX_DEPTH is reached,
+     * reporting after every completed depth and every quarter second in between.
+     */
+    public void analyze(Position position, Listener listener) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        try {
+            deepen(position, listener);
+        } finally {
+            NODES.add(nodes);
+            if (event.shouldCommit()) {
+                event.fen = position.toFen();
+                event.nodes = nodes;
+                if (lastInfo != null) {
+                    event.depth = lastInfo.depth;
+                    event.score = lastInfo.score;
+                }
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Searches for about the given time and returns the result of the last completed depth,
+     * or null if the side to move has no legal move. Meant for playing rather than analysing.
+     */
+    public Info think(Position position, long millis) {
+        Info[] result = new Info[1];
+        deadlineNanos = System.nanoTime() + millis * 1_000_000;
+        try {
+            analyze(position, info -> {
+                if (!info.isBook()) result[0] = info;
+            });
+        } finally {
+            deadlineNanos = Long.MAX_VALUE;
+        }
+        return result[0] == null || result[0].getPv().isEmpty() ? null : result[0];
+    }
+
+    private void deepen(Position position, Listener listener) {
+        this.root = position;
+        this.listener = listener;
+        setPosition(position);
+        nodes = 0;
+        startNanos = lastReportNanos = System.nanoTime();
+        lastInfo = null;
+        for (int[] pair : killers) pair[0] = pair[1] = 0;
+        for (int[] row : history) Arrays.fill(row, 0);
+
+        if (book != null) reportBook(position);
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            int score;
+            try {
+                score = search(depth, -INFINITY, INFINITY, 0);
+            } catch (SearchStopped stopped) {
+                return;
+            }
+            lastInfo = info(depth, score);
+            lastReportNanos = System.nanoTime();
+            listener.update(lastInfo);
+            // Nothing deeper to find once there are no legal moves, a mate within the horizon is proven,
+            // or every move leads to a tablebase position and so already has its exact score.
+            if (pvLength[0] == 0 || (lastInfo.isMate() && MATE - Math.abs(score) <= depth)) return;
+            if (inTablebase() && probeTablebase(0) != NO_SCORE) return;
+            if (Thread.currentThread().isInterrupted() || System.nanoTime() >= deadlineNanos) return;
+        }
+    }
+
+    private void reportBook(Position position) {
+        List<OpeningBook.BookMove> moves = new ArrayList<>(book.lookup(position.zobristKey()));
+        if (moves.isEmpty()) return;
+        moves.sort(Comparator.comparingInt(OpeningBook.BookMove::getGames).reversed());
+        ChessBoard board = new ChessBoard(position);
+        List<String> sans = new ArrayList<>();
+        for (OpeningBook.BookMove move : moves) {
+            int[] m = move.getMove();
+            sans.add(San.toSan(board, m[0], m[1], m[2], m[3], move.getPromotion()));
+        }
+        listener.update(new Info(0, 0, 0, Collections.unmodifiableList(sans), 0, 0, true));
+    }
+
+    private Info info(int depth, int score) {
+        List<String> line = new ArrayList<>();
+        ChessBoard board = new ChessBoard(root);
+        for (int i = 0; i < pvLength[0]; i++) {
+            int move = pv[0][i];
+            int from = move & 63, to = (move >>> 6) & 63;
+            PieceType promotion = TYPES[(move >>> 12) & 7];
+            if (promotion == null) promotion = PieceType.QUEEN;
+            String san = San.toSan(board, from / 8, from % 8, to / 8, to % 8, promotion);
+            if (!board.movePiece(from / 8, from % 8, to / 8, to % 8, board.getSideToMove(), promotion)) break;
+            line.add(san);
+        }
+        int rootSide = root.getSideToMove() == Color.WHITE ? WHITE : BLACK;
+        int mateIn = 0;
+        if (Math.abs(score) > MATE - MAX_PLY) {
+            int moves = (MATE - Math.abs(score) + 1) / 2;
+            mateIn = Integer.signum(score) * rootSide * moves;
+        }
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        return new Info(depth, score * rootSide, mateIn, Collections.unmodifiableList(line),
+                nodes, nodes * 1_000_000_000L / elapsed, false);
+    }
+
+    // ------------------- Search -------------------
+
+    private int search(int depth, int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (halfmove >= 100 || isRepetition())) return 0;
+        if (ply >= MAX_PLY - 1) return evaluate();
+        if (ply > 0 && inTablebase()) {
+            int score = probeTablebase(ply);
+            if (score != NO_SCORE) return score;
+        }
+        boolean inCheck = isAttacked(kings[sideIndex(side)], -side);
+        if (inCheck) depth++;
+        if (depth <= 0) return quiesce(alpha, beta, ply);
+        countNode();
+
+        int tableMove = 0;
+        int slot = (int) key & ((1 << TABLE_BITS) - 1);
+        if (tableKeys[slot] == key) {
+            long data = tableData[slot];
+            tableMove = (int) (data & 0x3FFFF);
+            int storedDepth = (int) (data >>> 34) & 0xFF;
+            if (ply > 0 && storedDepth >= depth) {
+                int score = fromTable((int) ((data >>> 18) & 0xFFFF) - 32768, ply);
+                int bound = (int) (data >>> 42) & 3;
+                if (bound == BOUND_EXACT
+                        || (bound == BOUND_LOWER && score >= beta)
+                        || (bound == BOUND_UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = moveLists[ply];
+        int count = generateMoves(moves, false);
+        scoreMoves(ply, count, tableMove);
+        int originalAlpha = alpha;
+        int best = -INFINITY, bestMove = 0, legal = 0;
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            if (!makeMove(move)) {
+                unmakeMove(move);
+                continue;
+            }
+            legal++;
+            int score;
+            if (legal == 1) {
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                // Later moves are expected to fail low; only re-search them with a full window if they don't.
+                score = -search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && score < beta) score = -search(depth - 1, -beta, -alpha, ply + 1);
+            }
+            unmakeMove(move);
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    pv[ply][ply] = move;
+                    System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = pvLength[ply + 1];
+                    if (alpha >= beta) {
+                        if (isQuiet(move)) {
+                            if (killers[ply][0] != move) {
+                                killers[ply][1] = killers[ply][0];
+                                killers[ply][0] = move;
+                            }
+                            history[move & 63][(move >>> 6) & 63] += depth * depth;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        if (legal == 0) return inCheck ? -MATE + ply : 0;
+
+        int bound = best <= originalAlpha ? BOUND_UPPER : best >= beta ? BOUND_LOWER : BOUND_EXACT;
+        tableKeys[slot] = key;
+        tableData[slot] = (bestMove & 0x3FFFFL) | (long) (toTable(best, ply) + 32768) << 18
+                | (long) Math.min(depth, 255) << 34 | (long) bound << 42;
+        return best;
+    }
+
+    // Searches captures (and queen promotions) until the position is quiet, so the
+    // evaluation never stops in the middle of an exchange.
+    private int quiesce(int alpha, int beta, int ply) {
+        pvLength[ply] = ply;
+        countNode();
+        int standPat = evaluate();
+        if (standPat >= beta || ply >= MAX_PLY - 1) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int count = generateMoves(moveLists[ply], true);
+        scoreMoves(ply, count, 0);
+        for (int i = 0; i < count; i++) {
+            int move = pickMove(ply, i, count);
+            if (!makeMove(move)) {
+                unmakeMove(move);
+                continue;
+            }
+            int score = -quiesce(-beta, -alpha, ply + 1);
+            unmakeMove(move);
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+        return alpha;
+    }
+
+    private void countNode() {
+        if ((++nodes & 4095) != 0) return;
+        long now = System.nanoTime();
+        if (now >= deadlineNanos || Thread.currentThread().isInterrupted()) throw STOPPED;
+        if (lastInfo != null && now - lastReportNanos >= PROGRESS_INTERVAL_NANOS) {
+            // Same line as the last completed depth, with current node counts.
+            lastReportNanos = now;
+            long elapsed = Math.max(1, now - startNanos);
+            listener.update(new Info(lastInfo.depth, lastInfo.score, lastInfo.mateIn, lastInfo.pv,
+                    nodes, nodes * 1_000_000_000L / elapsed, false));
+        }
+    }
+
+    private boolean isRepetition() {
+        // Only positions since the last capture or pawn move can repeat.
+        int limit = Math.max(0, historyLength - 1 - halfmove);
+        for (int i = historyLength - 3; i >= limit; i -= 2) {
+            if (keyHistory[i] == key) return true;
+        }
+        return false;
+    }
+
+    private boolean inTablebase() {
+        return tablebase != null && pieceCount <= Tablebase.MAX_PIECES && castling == 0;
+    }
+
+    private int probeTablebase(int ply) {
+        PieceType[] types = new PieceType[pieceCount];
+        Color[] colors = new Color[pieceCount];
+        int[] pieceSquares = new int[pieceCount];
+        int n = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = squares[sq];
+            if (piece == 0) continue;
+            if (Math.abs(piece) == PAWN) return NO_SCORE;
+            types[n] = TYPES[Math.abs(piece)];
+            colors[n] = piece > 0 ? Color.WHITE : Color.BLACK;
+            pieceSquares[n++] = sq;
+        }
+        int value;
+        try {
+            value = tablebase.probe(types, colors, pieceSquares, side == WHITE ? Color.WHITE : Color.BLACK);
+        } catch (IOException ex) {
+            return NO_SCORE;
+        }
+        if (value == Integer.MIN_VALUE || value == Tablebase.ILLEGAL) return NO_SCORE;
+        // Mate in n moves is delivered 2n - 1 plies from here; mated in n, 2n plies from here.
+        if (value > 0) return MATE - ply - (2 * value - 1);
+        if (value < 0) return -MATE + ply + 2 * (-value - 1);
+        return 0;
+    }
+
+    // Mate scores are stored relative to the node, not the root, so they stay valid at other plies.
+    private static int toTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) return score + ply;
+        if (score < -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MATE - MAX_PLY) return score - ply;
+        if (score < -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    // ------------------- Move ordering -------------------
+
+    private void scoreMoves(int ply, int count, int tableMove) {
+        int[] moves = moveLists[ply], scores = moveScores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = move & 63, to = (move >>> 6) & 63;
+            int victim = Math.abs(squares[to]);
+            if (move == tableMove) {
+                scores[i] = 1_000_000;
+            } else if (victim != 0 || (move >>> 15) == FLAG_EN_PASSANT) {
+                // Most valuable victim first, then least valuable attacker.
+                scores[i] = 100_000 + VALUE[Math.max(victim, PAWN)] * 10 - Math.abs(squares[from]);
+            } else if (((move >>> 12) & 7) == QUEEN) {
+                scores[i] = 90_000;
+            } else if (move == killers[ply][0]) {
+                scores[i] = 80_000;
+            } else if (move == killers[ply][1]) {
+                scores[i] = 70_000;
+            } else {
+                scores[i] = Math.min(history[from][to], 60_000);
+            }
+        }
+    }
+
+    // Moves the best-scored remaining move to index i and returns it.
+    private int pickMove(int ply, int i, int count) {
+        int[] moves = moveLists[ply], scores = moveScores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        int move = moves[best], score = scores[best];
+        moves[best] = moves[i];
+        scores[best] = scores[i];
+        moves[i] = move;
+        scores[i] = score;
+        return move;
+    }
+
+    private boolean isQuiet(int move) {
+        // Called after unmakeMove, so the target square holds what the move would capture.
+        return squares[(move >>> 6) & 63] == 0 && (move >>> 15) != FLAG_EN_PASSANT && ((move >>> 12) & 7) == 0;
+    }
+
+    // ------------------- Evaluation -------------------
+
+    // Material and piece-square tables, from the side to move's point of view.
+    private int evaluate() {
+        int score = 0, material = 0, whiteKing = 0, blackKing = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = squares[sq];
+            if (piece > 0) {
+                if (piece == KING) {
+                    whiteKing = sq;
+                    continue;
+                }
+                score += VALUE[piece] + PIECE_SQUARE[piece][sq];
+                if (piece != PAWN) material += VALUE[piece];
+            } else if (piece < 0) {
+                if (piece == -KING) {
+                    blackKing = sq;
+                    continue;
+                }
+                score -= VALUE[-piece] + PIECE_SQUARE[-piece][sq ^ 56];
+                if (piece != -PAWN) material += VALUE[-piece];
+            }
+        }
+        int[] kingTable = material <= ENDGAME_MATERIAL ? KING_ENDGAME : KING_MIDDLEGAME;
+        score += kingTable[whiteKing] - kingTable[blackKing ^ 56];
+        return side == WHITE ? score : -score;
+    }
+
+    // ------------------- Board -------------------
+
+    private static int sideIndex(int side) {
+        return side == WHITE ? 0 : 1;
+    }
+
+    private static long pieceKey(int piece, int sq) {
+        return Zobrist.PIECES[(piece > 0 ? 0 : 6) + Math.abs(piece) - 1][sq];
+    }
+
+    // The en passant file's key if a pawn of the capturing side stands next to the pushed pawn, as in Position.
+    private long enPassantKey(int square, int capturer) {
+        if (square == -1) return 0;
+        int pushed = square + (capturer == WHITE ? 8 : -8), col = pushed % 8;
+        if ((col > 0 && squares[pushed - 1] == capturer * PAWN) || (col < 7 && squares[pushed + 1] == capturer * PAWN)) {
+            return Zobrist.EN_PASSANT_FILE[col];
+        }
+        return 0;
+    }
+
+    private void setPosition(Position position) {
+        pieceCount = 0;
+        key = position.zobristKey();
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPiece piece = position.getPiece(sq / 8, sq % 8);
+            if (piece == null) {
+                squares[sq] = 0;
+                continue;
+            }
+            int type = piece.getType().ordinal() + 1;
+            squares[sq] = piece.getColor() == Color.WHITE ? type : -type;
+            if (type == KING) kings[piece.getColor().ordinal()] = sq;
+            pieceCount++;
+        }
+        side = position.getSideToMove() == Color.WHITE ? WHITE : BLACK;
+        // Same bit order as the engine's castling rights.
+        castling = position.getCastlingRights();
+        enPassant = position.getEnPassantSquare();
+        halfmove = position.getHalfmoveClock();
+        historyLength = 0;
+        keyHistory[historyLength++] = key;
+    }
+
+    /**
+     * Plays a pseudo-legal move. Returns false if it leaves the mover's king in check;
+     * the move must be unmade either way.
+     */
+    private boolean makeMove(int move) {
+        int from = move & 63, to = (move >>> 6) & 63, promotion = (move >>> 12) & 7, flag = move >>> 15;
+        int piece = squares[from], captured = squares[to];
+        undoCaptured[historyLength] = captured;
+        undoCastling[historyLength] = castling;
+        undoEnPassant[historyLength] = enPassant;
+        undoHalfmove[historyLength] = halfmove;
+        // Taken before the move, which may move or take the pawn that could capture en passant.
+        long enPassantKey = enPassantKey(enPassant, side);
+
+        key ^= pieceKey(piece, from);
+        if (captured != 0) {
+            key ^= pieceKey(captured, to);
+            pieceCount--;
+        }
+        int placed = promotion != 0 ? side * promotion : piece;
+        squares[from] = 0;
+        squares[to] = placed;
+        key ^= pieceKey(placed, to);
+
+        if (flag == FLAG_EN_PASSANT) {
+            int capturedSquare = to + (side == WHITE ? 8 : -8);
+            key ^= pieceKey(squares[capturedSquare], capturedSquare);
+            squares[capturedSquare] = 0;
+            pieceCount--;
+        } else if (flag == FLAG_CASTLE) {
+            int rookFrom = to > from ? to + 1 : to - 2, rookTo = to > from ? to - 1 : to + 1;
+            int rook = squares[rookFrom];
+            squares[rookFrom] = 0;
+            squares[rookTo] = rook;
+            key ^= pieceKey(rook, rookFrom) ^ pieceKey(rook, rookTo);
+        }
+        if (piece == side * KING) kings[sideIndex(side)] = to;
+
+        key ^= CASTLE_KEYS[castling];
+        castling &= CASTLE_MASK[from] & CASTLE_MASK[to];
+        key ^= CASTLE_KEYS[castling];
+        key ^= enPassantKey;
+        enPassant = flag == FLAG_DOUBLE_PUSH ? (from + to) / 2 : -1;
+        key ^= enPassantKey(enPassant, -side);
+        halfmove = (piece == side * PAWN || captured != 0) ? 0 : halfmove + 1;
+
+        int mover = side;
+        side = -side;
+        key ^= Zobrist.BLACK_TO_MOVE;
+        keyHistory[historyLength++] = key;
+        return !isAttacked(kings[sideIndex(mover)], side);
+    }
+
+    private void unmakeMove(int move) {
+        int from = move & 63, to = (move >>> 6) & 63, promotion = (move >>> 12) & 7, flag = move >>> 15;
+        historyLength--;
+        side = -side;
+        int piece = promotion != 0 ? side * PAWN : squares[to];
+        int captured = undoCaptured[historyLength];
+        squares[from] = piece;
+        squares[to] = captured;
+        if (captured != 0) pieceCount++;
+
+        if (flag == FLAG_EN_PASSANT) {
+            squares[to + (side == WHITE ? 8 : -8)] = -side * PAWN;
+            pieceCount++;
+        } else if (flag == FLAG_CASTLE) {
+            int rookFrom = to > from ? to + 1 : to - 2, rookTo = to > from ? to - 1 : to + 1;
+            squares[rookFrom] = squares[rookTo];
+            squares[rookTo] = 0;
+        }
+        if (piece == side * KING) kings[sideIndex(side)] = from;
+
+        castling = undoCastling[historyLength];
+        enPassant = undoEnPassant[historyLength];
+        halfmove = undoHalfmove[historyLength];
+        key = keyHistory[historyLength - 1];
+    }
+
+    // True if the given side (WHITE or BLACK) attacks the square.
+    private boolean isAttacked(int sq, int by) {
+        int row = sq / 8, col = sq % 8;
+        // A white pawn attacks from the row below (higher index), a black one from the row above.
+        int pawnRow = row + (by == WHITE ? 1 : -1);
+        if (pawnRow >= 0 && pawnRow < 8) {
+            if (col > 0 && squares[pawnRow * 8 + col - 1] == by * PAWN) return true;
+            if (col < 7 && squares[pawnRow * 8 + col + 1] == by * PAWN) return true;
+        }
+        for (int target : KNIGHT_TARGETS[sq]) {
+            if (squares[target] == by * KNIGHT) return true;
+        }
+        for (int target : KING_TARGETS[sq]) {
+            if (squares[target] == by * KING) return true;
+        }
+        for (int d = 0; d < 8; d++) {
+            int slider = d < 4 ? by * ROOK : by * BISHOP;
+            for (int target : RAYS[d][sq]) {
+                int piece = squares[target];
+                if (piece == 0) continue;
+                if (piece == slider || piece == by * QUEEN) return true;
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills the list with pseudo-legal moves for the side to move and returns how many.
+     * With capturesOnly, just captures and queen promotions.
+     */
+    private int generateMoves(int[] list, boolean capturesOnly) {
+        int n = 0;
+        for (int from = 0; from < 64; from++) {
+            int piece = squares[from] * side;
+            if (piece <= 0) continue;
+            switch (piece) {
+                case PAWN -> n = pawnMoves(list, n, from, capturesOnly);
+                case KNIGHT -> n = stepMoves(list, n, from, KNIGHT_TARGETS[from], capturesOnly);
+                case KING -> {
+                    n = stepMoves(list, n, from, KING_TARGETS[from], capturesOnly);
+                    if (!capturesOnly) n = castlingMoves(list, n);
+                }
+                default -> {
+                    int first = piece == BISHOP ? 4 : 0, last = piece == ROOK ? 4 : 8;
+                    for (int d = first; d < last; d++) {
+                        for (int to : RAYS[d][from]) {
+                            int target = squares[to] * side;
+                            if (target > 0) break;
+                            if (target < 0 || !capturesOnly) list[n++] = from | to << 6;
+                            if (target < 0) break;
+                        }
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    private int stepMoves(int[] list, int n, int from, int[] targets, boolean capturesOnly) {
+        for (int to : targets) {
+            int target = squares[to] * side;
+            if (target < 0 || (target == 0 && !capturesOnly)) list[n++] = from | to << 6;
+        }
+        return n;
+    }
+
+    private int pawnMoves(int[] list, int n, int from, boolean capturesOnly) {
+        int forward = side == WHITE ? -8 : 8;
+        int row = from / 8, col = from % 8;
+        boolean promotes = row == (side == WHITE ? 1 : 6);
+        int to = from + forward;
+        if (squares[to] == 0) {
+            if (promotes) {
+                n = promotions(list, n, from, to, capturesOnly);
+            } else if (!capturesOnly) {
+                list[n++] = from | to << 6;
+                if (row == (side == WHITE ? 6 : 1) && squares[to + forward] == 0) {
+                    list[n++] = from | (to + forward) << 6 | FLAG_DOUBLE_PUSH << 15;
+                }
+            }
+        }
+        for (int dc = -1; dc <= 1; dc += 2) {
+            if (col + dc < 0 || col + dc > 7) continue;
+            int target = to + dc;
+            if (squares[target] * side < 0) {
+                if (promotes) n = promotions(list, n, from, target, capturesOnly);
+                else list[n++] = from | target << 6;
+            } else if (target == enPassant) {
+                list[n++] = from | target << 6 | FLAG_EN_PASSANT << 15;
+            }
+        }
+        return n;
+    }
+
+    private static int promotions(int[] list, int n, int from, int to, boolean queenOnly) {
+        list[n++] = from | to << 6 | QUEEN << 12;
+        if (!queenOnly) {
+            list[n++] = from | to << 6 | KNIGHT << 12;
+            list[n++] = from | to << 6 | ROOK << 12;
+            list[n++] = from | to << 6 | BISHOP << 12;
+        }
+        return n;
+    }
+
+    private int castlingMoves(int[] list, int n) {
+        // King on e1/e8; the king may not castle out of, through or into check.
+        int kingSquare = side == WHITE ? 60 : 4;
+        int kingSide = side == WHITE ? 1 : 4, queenSide = side == WHITE ? 2 : 8;
+        if (squares[kingSquare] != side * KING || isAttacked(kingSquare, -side)) return n;
+        if ((castling & kingSide) != 0 && squares[kingSquare + 3] == side * ROOK
+                && squares[kingSquare + 1] == 0 && squares[kingSquare + 2] == 0
+                && !isAttacked(kingSquare + 1, -side) && !isAttacked(kingSquare + 2, -side)) {
+            list[n++] = kingSquare | (kingSquare + 2) << 6 | FLAG_CASTLE << 15;
+        }
+        if ((castling & queenSide) != 0 && squares[kingSquare - 4] == side * ROOK
+                && squares[kingSquare - 1] == 0 && squares[kingSquare - 2] == 0 && squares[kingSquare - 3] == 0
+                && !isAttacked(kingSquare - 1, -side) && !isAttacked(kingSquare - 2, -side)) {
+            list[n++] = kingSquare | (kingSquare - 2) << 6 | FLAG_CASTLE << 15;
+        }
+        return n;
+    }
+
+    /**
+     * Counts the leaf positions of the legal move tree to the given depth (perft), for checking
+     * the move generator against known totals.
+     */
+    long perft(Position position, int depth) {
+        setPosition(position);
+        return perft(depth, 0);
+    }
+
+    private long perft(int depth, int ply) {
+        if (depth == 0) return 1;
+        int[] moves = moveLists[ply];
+        int count = generateMoves(moves, false);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (makeMove(moves[i])) total += perft(depth - 1, ply + 1);
+            unmakeMove(moves[i]);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.projectchess.backend;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and histograms for the hot paths: move generation, legality checks,
+ * server message latency, spectator queue depth, redraw time and so on.
+ *
+ * Disabled unless started with -Dchess.metrics=true. The flag is a static final, so when it is off
+ * the JIT drops every increment and record call. When on, updates are LongAdders, which do not
+ * contend between threads. The values are printed at exit and, with
+ * -Dchess.metrics.interval=seconds, periodically; {@link #snapshot()} returns them on demand.
+ */
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    private static final List<Counter> COUNTERS = new ArrayList<>();
+    private static final List<Histogram> HISTOGRAMS = new ArrayList<>();
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(System.out), "metrics-exit"));
+            long interval = Long.getLong("chess.metrics.interval", 0);
+            if (interval > 0) {
+                Thread dumper = new Thread(() -> {
+                    try {
+                        while (true) {
+                            Thread.sleep(interval * 1000);
+                            dump(System.out);
+                        }
+                    } catch (InterruptedException ignored) {
+                    }
+                }, "metrics-dump");
+                dumper.setDaemon(true);
+                dumper.start();
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    public static synchronized Counter counter(String name) {
+        Counter counter = new Counter(name);
+        COUNTERS.add(counter);
+        return counter;
+    }
+
+    // unit only labels the dump, e.g. "us".
+    public static synchronized Histogram histogram(String name, String unit) {
+        Histogram histogram = new Histogram(name, unit);
+        HISTOGRAMS.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Returns every metric's current value, one per line.
+     */
+    public static synchronized String snapshot() {
+        StringBuilder out = new StringBuilder();
+        for (Counter counter : COUNTERS) {
+            out.append(counter).append('\n');
+        }
+        for (Histogram histogram : HISTOGRAMS) {
+            out.append(histogram).append('\n');
+        }
+        return out.toString();
+    }
+
+    public static void dump(PrintStream out) {
+        out.print("--- metrics ---\n" + snapshot());
+    }
+
+    /**
+     * A count of events.
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            if (ENABLED) count.increment();
+        }
+
+        public void add(long amount) {
+            if (ENABLED) count.add(amount);
+        }
+
+        public long get() {
+            return count.sum();
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + count.sum();
+        }
+    }
+
+    /**
+     * A distribution of non-negative values in power-of-two buckets: bucket b holds values
+     * below 2^b, so percentiles are upper bounds within a factor of two.
+     */
+    public static final class Histogram {
+        private final String name;
+        private final String unit;
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        private Histogram(String name, String unit) {
+            this.name = name;
+            this.unit = unit;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void record(long value) {
+            if (!ENABLED) return;
+            value = Math.max(0, value);
+            buckets[Math.min(63, 64 - Long.numberOfLeadingZeros(value))].increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (LongAdder bucket : buckets) count += bucket.sum();
+            return count;
+        }
+
+        // Upper bound of the bucket holding the given fraction of values, e.g. 0.99, capped at the maximum.
+        public long percentile(double fraction) {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+                total += counts[i];
+            }
+            long rank = (long) Math.ceil(fraction * total), seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) return i == 0 ? 0 : Math.min((1L << i) - 1, max.get());
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            long count = getCount();
+            if (count == 0) return name + " count=0";
+            return String.format("%s count=%d mean=%.1f%s p50<=%d p99<=%d max=%d%s", name, count,
+                    (double) sum.sum() / count, unit, percentile(0.5), percentile(0.99), max.get(), unit);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.projectchess.backend;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one {@link ChessBoard#movePiece} call, legal or not.
+ */
+@Name("com.example.projectchess.Move")
+@Label("Move")
+@Category({"Chess", "Board"})
+@Description("A move played on a board, including the legality check")
+class MoveEvent extends jdk.jfr.Event {
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+
+    @Label("Legal")
+    boolean legal;
+}
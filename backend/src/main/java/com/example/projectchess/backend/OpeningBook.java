@@ -0,0 +1,166 @@
+package com.example.projectchess.backend;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A binary opening book written by {@link OpeningBookBuilder}, memory-mapped and searched in place.
+ * Opening a book reads only its header, so startup time and heap use do not depend on its size.
+ *
+ * File layout: an 8-byte magic and the entry count, then fixed-size entries sorted by key and move:
+ *
+ *   zobrist key (8) | move (2) | reserved (2) | games (4) | white wins (4) | black wins (4)
+ */
+public class OpeningBook implements AutoCloseable {
+    static final byte[] MAGIC = "CHSBOOK1".getBytes(StandardCharsets.US_ASCII);
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 24;
+    // Entries per mapping; a single MappedByteBuffer cannot exceed 2 GiB.
+    private static final long CHUNK_RECORDS = (1L << 30) / RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+
+    /**
+     * One book move with the results of the games that played it.
+     */
+    public static final class BookMove {
+        private final int move;
+        private final int games, whiteWins, blackWins;
+
+        BookMove(int move, int games, int whiteWins, int blackWins) {
+            this.move = move;
+            this.games = games;
+            this.whiteWins = whiteWins;
+            this.blackWins = blackWins;
+        }
+
+        // Returns {sRow, sCol, eRow, eCol}, like ChessBoard.movePiece takes them.
+        public int[] getMove() {
+            int from = (move >>> 6) & 63, to = move & 63;
+            return new int[]{from / 8, from % 8, to / 8, to % 8};
+        }
+
+        public PieceType getPromotion() {
+            int promotion = (move >>> 12) & 7;
+            return promotion == 0 ? PieceType.QUEEN : PieceType.values()[promotion];
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWhiteWins() {
+            return whiteWins;
+        }
+
+        public int getBlackWins() {
+            return blackWins;
+        }
+
+        public int getDraws() {
+            return games - whiteWins - blackWins;
+        }
+    }
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer[] chunks, long size) {
+        this.channel = channel;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    public static OpeningBook open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            for (byte b : MAGIC) {
+                if (header.get() != b) throw new IOException("Not an opening book: " + file);
+            }
+            long size = header.getLong();
+            if (channel.size() < HEADER_SIZE + size * RECORD_SIZE) {
+                throw new IOException("Truncated opening book: " + file);
+            }
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK_RECORDS - 1) / CHUNK_RECORDS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = i * CHUNK_RECORDS;
+                long records = Math.min(CHUNK_RECORDS, size - first);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE,
+                        records * RECORD_SIZE);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new OpeningBook(channel, chunks, size);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public List<BookMove> lookup(ChessBoard board) {
+        return lookup(board.zobristKey());
+    }
+
+    /**
+     * Returns the book moves stored for a position key, found by binary search over the mapped file.
+     */
+    public List<BookMove> lookup(long key) {
+        long low = 0, high = size;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (keyAt(mid) < key) low = mid + 1;
+            else high = mid;
+        }
+        List<BookMove> moves = new ArrayList<>();
+        for (long i = low; i < size && keyAt(i) == key; i++) {
+            MappedByteBuffer chunk = chunks[(int) (i / CHUNK_RECORDS)];
+            int offset = (int) (i % CHUNK_RECORDS) * RECORD_SIZE;
+            moves.add(new BookMove(chunk.getShort(offset + 8) & 0xFFFF, chunk.getInt(offset + 12),
+                    chunk.getInt(offset + 16), chunk.getInt(offset + 20)));
+        }
+        return moves;
+    }
+
+    /**
+     * Picks a book move for the side to move, weighted by how often it was played.
+     * Returns null if the position is not in the book.
+     */
+    public BookMove pick(ChessBoard board, Random random) {
+        List<BookMove> moves = lookup(board);
+        long total = 0;
+        for (BookMove move : moves) total += move.getGames();
+        if (total == 0) return null;
+        long choice = (long) (random.nextDouble() * total);
+        for (BookMove move : moves) {
+            choice -= move.getGames();
+            if (choice < 0) return move;
+        }
+        return moves.get(moves.size() - 1);
+    }
+
+    static int encodeMove(int sRow, int sCol, int eRow, int eCol, PieceType promotion) {
+        int code = (promotion == null || promotion == PieceType.QUEEN) ? 0 : promotion.ordinal();
+        return code << 12 | (sRow * 8 + sCol) << 6 | (eRow * 8 + eCol);
+    }
+
+    private long keyAt(long index) {
+        return chunks[(int) (index / CHUNK_RECORDS)].getLong((int) (index % CHUNK_RECORDS) * RECORD_SIZE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.projectchess.backend;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds an {@link OpeningBook} from PGN files. Games are streamed in parallel and every
+ * (position, move) pair of the first plies is counted with the game's result. PGN files are read
+ * in chunks, each with counts of its own, so reader threads never wait for one another; counts are
+ * kept in memory up to a limit, spilled to sorted run files, and the runs are merged into the book,
+ * at most {@link #MERGE_FAN_IN} at a time, so neither heap nor open files grow with the number of entries.
+ *
+ * Run with: java com.example.projectchess.backend.OpeningBookBuilder book.bin games.pgn... [--plies n] [--min-games n]
+ */
+public class OpeningBookBuilder {
+    // Entries held in memory across all threads; each thread's counts spill at its share.
+    private static final int SPILL_ENTRIES = 2_000_000;
+    // Chunks per thread when reading PGN, so threads that finish early pick up more work.
+    private static final int CHUNKS_PER_THREAD = 4;
+    // Runs open at once while merging; more are merged in passes through intermediate runs.
+    private static final int MERGE_FAN_IN = 64;
+
+    private final int maxPlies;
+    private final int minGames;
+    private final Path workDirectory;
+    private final AtomicInteger runNumber = new AtomicInteger();
+    private final List<Path> runs = new ArrayList<>();
+    private long gamesRead, gamesSkipped;
+
+    private record Entry(long key, int move) {
+    }
+
+    public OpeningBookBuilder(int maxPlies, int minGames, Path workDirectory) {
+        this.maxPlies = maxPlies;
+        this.minGames = minGames;
+        this.workDirectory = workDirectory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int plies = 24, minGames = 2;
+        List<Path> inputs = new ArrayList<>();
+        Path output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min-games" -> minGames = Integer.parseInt(args[++i]);
+                default -> {
+                    if (output == null) output = Path.of(args[i]);
+                    else inputs.add(Path.of(args[i]));
+                }
+            }
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.out.println("Usage: OpeningBookBuilder book.bin games.pgn... [--plies n] [--min-games n]");
+            return;
+        }
+        long start = System.nanoTime();
+        Path work = Files.createTempDirectory("book-runs");
+        try {
+            OpeningBookBuilder builder = new OpeningBookBuilder(plies, minGames, work);
+            for (Path input : inputs) {
+                builder.addGames(input);
+            }
+            long entries = builder.write(output);
+            System.out.printf("Read %,d games (%,d skipped), wrote %,d entries to %s in %d ms%n",
+                    builder.gamesRead, builder.gamesSkipped, entries, output, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            PositionIndexBuilder.deleteDirectory(work);
+        }
+    }
+
+    /**
+     * Adds every game of a PGN file, using all cores.
+     */
+    public void addGames(Path pgn) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int limit = Math.max(1, SPILL_ENTRIES / threads);
+        long[] bounds = PgnReader.splitAtGames(pgn, threads * CHUNKS_PER_THREAD);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i], end = bounds[i + 1];
+                if (start == end) continue;
+                chunks.add(executor.submit(() -> readChunk(pgn, start, end, new Counts(limit))));
+            }
+            for (Future<Void> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + pgn, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            throw new IOException("Failed to read " + pgn, ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Counts the games of one chunk of a PGN file and spills what is left of its counts.
+    private Void readChunk(Path pgn, long start, long end, Counts counts) throws IOException {
+        try (PgnReader reader = PgnReader.open(pgn, start, end)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                addGame(game, counts);
+            }
+        }
+        counts.spill();
+        synchronized (this) {
+            gamesRead += counts.gamesRead;
+            gamesSkipped += counts.gamesSkipped;
+        }
+        return null;
+    }
+
+    private void addGame(PgnGame game, Counts counts) throws IOException {
+        int result = switch (game.getResult()) {
+            case "1-0" -> 1;
+            case "0-1" -> -1;
+            default -> 0;
+        };
+        List<Entry> entries = new ArrayList<>();
+        ChessBoard board;
+        try {
+            board = game.startBoard();
+        } catch (IllegalArgumentException ex) {
+            board = null;
+        }
+        // Only games from the standard start position belong in an opening book.
+        if (board == null || game.getTag("FEN") != null) {
+            counts.gamesSkipped++;
+            return;
+        }
+        for (String san : game.getMoves()) {
+            if (entries.size() >= maxPlies) break;
+            int[] move = San.parse(board, san);
+            if (move == null) break;
+            PieceType promotion = PieceType.values()[move[4]];
+            entries.add(new Entry(board.zobristKey(),
+                    OpeningBook.encodeMove(move[0], move[1], move[2], move[3], promotion)));
+            board.movePiece(move[0], move[1], move[2], move[3], board.getSideToMove(), promotion);
+        }
+        counts.record(entries, result);
+    }
+
+    // One chunk's counts, touched only by the thread reading it.
+    private final class Counts {
+        private final int limit;
+        private final Map<Entry, int[]> counts = new HashMap<>();
+        long gamesRead, gamesSkipped;
+
+        Counts(int limit) {
+            this.limit = limit;
+        }
+
+        void record(List<Entry> entries, int result) throws IOException {
+            gamesRead++;
+            for (Entry entry : entries) {
+                int[] c = counts.computeIfAbsent(entry, e -> new int[3]);
+                c[0]++;
+                if (result > 0) c[1]++;
+                if (result < 0) c[2]++;
+            }
+            if (counts.size() >= limit) spill();
+        }
+
+        // Writes the counts to a run file sorted by key and move.
+        void spill() throws IOException {
+            if (counts.isEmpty()) return;
+            List<Map.Entry<Entry, int[]>> sorted = new ArrayList<>(counts.entrySet());
+            sorted.sort(Map.Entry.comparingByKey(ORDER));
+            Path run = workDirectory.resolve("run-" + runNumber.getAndIncrement() + ".bin");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run), 1 << 16)) {
+                ByteBuffer record = ByteBuffer.allocate(OpeningBook.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                for (Map.Entry<Entry, int[]> e : sorted) {
+                    writeRecord(out, record, e.getKey(), e.getValue());
+                }
+            }
+            synchronized (OpeningBookBuilder.this) {
+                runs.add(run);
+            }
+            counts.clear();
+        }
+    }
+
+    /**
+     * Merges all runs into the book file, dropping moves played in fewer than minGames games.
+     * Returns the number of entries written.
+     */
+    public synchronized long write(Path output) throws IOException {
+        long written;
+        try {
+            while (runs.size() > MERGE_FAN_IN) {
+                mergePass();
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+                out.write(new byte[OpeningBook.HEADER_SIZE]); // patched below once the count is known
+                written = merge(new ArrayList<>(runs), out, minGames);
+            }
+        } finally {
+            for (Path run : runs) Files.deleteIfExists(run);
+            runs.clear();
+        }
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(OpeningBook.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(OpeningBook.MAGIC).putLong(written).flip();
+            channel.write(header, 0);
+        }
+        return written;
+    }
+
+    // Merges the runs in groups of MERGE_FAN_IN into fewer, longer runs, keeping every entry.
+    private void mergePass() throws IOException {
+        List<Path> inputs = new ArrayList<>(runs);
+        for (int i = 0; i < inputs.size(); i += MERGE_FAN_IN) {
+            List<Path> group = inputs.subList(i, Math.min(i + MERGE_FAN_IN, inputs.size()));
+            if (group.size() == 1) continue;
+            Path run = workDirectory.resolve("run-" + runNumber.getAndIncrement() + ".bin");
+            runs.add(run); // listed first, so a failed merge still deletes it
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run), 1 << 16)) {
+                merge(group, out, 1);
+            }
+            for (Path input : group) {
+                Files.delete(input);
+                runs.remove(input);
+            }
+        }
+    }
+
+    // Writes the entries of the runs in order, counts of equal entries summed, and returns how many it wrote.
+    private static long merge(List<Path> inputs, OutputStream out, int minGames) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(Comparator.comparing(c -> c.entry, ORDER));
+        long written = 0;
+        try {
+            for (Path input : inputs) {
+                RunCursor cursor = new RunCursor(input);
+                if (cursor.advance()) queue.add(cursor);
+                else cursor.close();
+            }
+            ByteBuffer record = ByteBuffer.allocate(OpeningBook.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (!queue.isEmpty()) {
+                Entry entry = queue.peek().entry;
+                int[] total = new int[3];
+                while (!queue.isEmpty() && queue.peek().entry.equals(entry)) {
+                    RunCursor cursor = queue.poll();
+                    for (int i = 0; i < 3; i++) total[i] += cursor.counts[i];
+                    if (cursor.advance()) queue.add(cursor);
+                    else cursor.close();
+                }
+                if (total[0] >= minGames) {
+                    writeRecord(out, record, entry, total);
+                    written++;
+                }
+            }
+        } finally {
+            for (RunCursor cursor : queue) cursor.close();
+        }
+        return written;
+    }
+
+    // Signed key order, then move; OpeningBook.lookup searches in the same order.
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::key).thenComparingInt(Entry::move);
+
+    private static void writeRecord(OutputStream out, ByteBuffer record, Entry entry, int[] c) throws IOException {
+        record.clear();
+        record.putLong(entry.key()).putShort((short) entry.move()).putShort((short) 0)
+                .putInt(c[0]).putInt(c[1]).putInt(c[2]);
+        out.write(record.array());
+    }
+
+    private static final class RunCursor {
+        private final DataInputStream in;
+        private final ByteBuffer record = ByteBuffer.allocate(OpeningBook.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private Entry entry;
+        private final int[] counts = new int[3];
+
+        RunCursor(Path run) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                in.readFully(record.array());
+            } catch (EOFException ex) {
+                return false;
+            }
+            record.clear();
+            entry = new Entry(record.getLong(), record.getShort() & 0xFFFF);
+            record.getShort();
+            for (int i = 0; i < 3; i++) counts[i] = record.getInt();
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
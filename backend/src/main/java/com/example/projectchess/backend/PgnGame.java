@@ -0,0 +1,62 @@
+package com.example.projectchess.backend;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game in Portable Game Notation: its tag pairs, its moves in SAN and its result.
+ */
+public class PgnGame {
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private final List<String> moves = new ArrayList<>();
+    private String result = "*";
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public void setTag(String name, String value) {
+        tags.put(name, value);
+    }
+
+    public List<String> getMoves() {
+        return moves;
+    }
+
+    // "1-0", "0-1", "1/2-1/2" or "*" for an unfinished game.
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+        tags.put("Result", result);
+    }
+
+    /**
+     * Returns a board set up at the game's start position (the FEN tag if there is one).
+     */
+    public ChessBoard startBoard() {
+        ChessBoard board = new ChessBoard();
+        String fen = tags.get("FEN");
+        if (fen != null) board.loadFen(fen);
+        return board;
+    }
+
+    /**
+     * Plays every move on a new board. Returns the final position, or null if a move is illegal.
+     */
+    public ChessBoard replay() {
+        ChessBoard board = startBoard();
+        for (String san : moves) {
+            if (!San.play(board, san)) return null;
+        }
+        return board;
+    }
+}
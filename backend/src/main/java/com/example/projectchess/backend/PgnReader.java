@@ -0,0 +1,274 @@
+package com.example.projectchess.backend;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streams games out of a PGN file one at a time, so memory use depends on the largest game
+ * and not on the size of the file. Comments, variations, NAGs and move numbers are skipped.
+ */
+public class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader in;
+    private String pendingLine; // first line of the next game, read while finishing the previous one
+
+    public PgnReader(Reader reader) {
+        this.in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, BUFFER_SIZE);
+    }
+
+    public PgnReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the next game, or null at the end of the input.
+     */
+    public PgnGame next() throws IOException {
+        String line = pendingLine != null ? pendingLine : in.readLine();
+        pendingLine = null;
+        while (line != null && line.isBlank()) {
+            line = in.readLine();
+        }
+        if (line == null) return null;
+
+        PgnGame game = new PgnGame();
+        while (line != null && line.startsWith("[")) {
+            parseTag(game, line);
+            line = in.readLine();
+        }
+        StringBuilder movetext = new StringBuilder();
+        // Movetext ends at the next tag section; a '[' inside a brace comment does not count.
+        int commentDepth = 0;
+        while (line != null && !(line.startsWith("[") && commentDepth == 0)) {
+            movetext.append(line).append('\n');
+            commentDepth = commentDepth(line, commentDepth);
+            line = in.readLine();
+        }
+        pendingLine = line;
+        parseMovetext(game, movetext);
+        return game;
+    }
+
+    /**
+     * Reads every game in the file, calling the consumer for each.
+     * Returns the number of games read.
+     */
+    public static long readAll(Path file, Consumer<PgnGame> consumer) throws IOException {
+        try (PgnReader reader = open(file, 0, Long.MAX_VALUE)) {
+            long count = 0;
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                consumer.accept(game);
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads the file with several threads. The file is cut into one chunk per thread, each cut moved
+     * forward to the start of the next game, and each chunk streamed by its own reader.
+     * The consumer is called concurrently and in no particular order. Returns the number of games read.
+     */
+    public static long readParallel(Path file, int threads, Consumer<PgnGame> consumer) throws IOException {
+        long[] bounds = splitAtGames(file, threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i], end = bounds[i + 1];
+                if (start == end) continue;
+                chunks.add(executor.submit(() -> {
+                    long count = 0;
+                    try (PgnReader reader = open(file, start, end)) {
+                        for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                            consumer.accept(game);
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> chunk : chunks) {
+                total += chunk.get();
+            }
+            return total;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            if (ex.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException("Failed to read " + file, ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Reads the games between two offsets, such as two of those returned by splitAtGames.
+    static PgnReader open(Path file, long start, long end) throws IOException {
+        return new PgnReader(FileChannelInputStream.open(file, start, end));
+    }
+
+    // Returns parts + 1 offsets; each inner offset is the start of a line beginning with "[Event ".
+    static long[] splitAtGames(Path file, int parts) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = new long[parts + 1];
+            bounds[parts] = size;
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            for (int i = 1; i < parts; i++) {
+                long offset = Math.max(size * i / parts, bounds[i - 1]);
+                bounds[i] = nextGameStart(channel, offset, size, buffer);
+            }
+            return bounds;
+        }
+    }
+
+    private static long nextGameStart(FileChannel channel, long offset, long size, ByteBuffer buffer) throws IOException {
+        byte[] marker = "\n[Event ".getBytes(StandardCharsets.US_ASCII);
+        int matched = 0;
+        long position = Math.max(offset - 1, 0);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                matched = b == marker[matched] ? matched + 1 : (b == marker[0] ? 1 : 0);
+                if (matched == marker.length) {
+                    return position + i - marker.length + 2; // just after the newline
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static void parseTag(PgnGame game, String line) {
+        int space = line.indexOf(' ');
+        int open = line.indexOf('"');
+        int close = line.lastIndexOf('"');
+        if (space < 0 || open < 0 || close <= open) return;
+        String value = line.substring(open + 1, close).replace("\\\"", "\"").replace("\\\\", "\\");
+        game.getTags().put(line.substring(1, space), value);
+        if (line.startsWith("[Result ")) game.setResult(value);
+    }
+
+    private static int commentDepth(String line, int depth) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '{') depth++;
+            else if (c == '}') depth = Math.max(depth - 1, 0);
+            else if (c == ';' && depth == 0) break; // rest-of-line comment
+        }
+        return depth;
+    }
+
+    private static void parseMovetext(PgnGame game, CharSequence text) {
+        int variationDepth = 0;
+        int i = 0, n = text.length();
+        while (i < n) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '{') {
+                while (i < n && text.charAt(i) != '}') i++;
+                i++;
+            } else if (c == ';') {
+                while (i < n && text.charAt(i) != '\n') i++;
+            } else if (c == '(') {
+                variationDepth++;
+                i++;
+            } else if (c == ')') {
+                variationDepth = Math.max(variationDepth - 1, 0);
+                i++;
+            } else {
+                int start = i;
+                while (i < n && !Character.isWhitespace(text.charAt(i)) && "{;()".indexOf(text.charAt(i)) < 0) i++;
+                if (variationDepth == 0) addToken(game, text.subSequence(start, i).toString());
+            }
+        }
+    }
+
+    private static void addToken(PgnGame game, String token) {
+        if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*")) {
+            game.setResult(token);
+            return;
+        }
+        if (token.charAt(0) == '$') return; // NAG
+        // Strip a leading move number such as "12." or "12..." (possibly glued to the move).
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) i++;
+        if (i > 0 && i < token.length() && token.charAt(i) == '.') {
+            while (i < token.length() && token.charAt(i) == '.') i++;
+            token = token.substring(i);
+        } else if (i == token.length()) {
+            return;
+        }
+        if (!token.isEmpty()) game.getMoves().add(token);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads a byte range of a file through positional channel reads.
+     */
+    private static final class FileChannelInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        private FileChannelInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        static FileChannelInputStream open(Path file, long start, long end) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new FileChannelInputStream(channel, start, Math.min(end, channel.size()));
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) return -1;
+            int toRead = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+            if (read > 0) position += read;
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.projectchess.backend;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Writes games in export-format PGN: the seven tag roster first, movetext wrapped at 80 columns.
+ */
+public final class PgnWriter {
+    private static final String[] ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int LINE_WIDTH = 80;
+
+    private PgnWriter() {
+    }
+
+    public static void write(PgnGame game, Writer out) throws IOException {
+        for (String tag : ROSTER) {
+            String value = game.getTag(tag);
+            writeTag(out, tag, value != null ? value : tag.equals("Result") ? game.getResult() : "?");
+        }
+        for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+            if (!isRoster(tag.getKey())) writeTag(out, tag.getKey(), tag.getValue());
+        }
+        out.write('\n');
+
+        // Move numbers follow the start position, which may be a FEN with black to move.
+        ChessBoard start = game.startBoard();
+        int number = start.getFullmoveNumber();
+        boolean white = start.getSideToMove() == Color.WHITE;
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < game.getMoves().size(); i++) {
+            String token = game.getMoves().get(i);
+            if (white) {
+                token = number + ". " + token;
+            } else if (i == 0) {
+                token = number + "... " + token;
+            }
+            append(out, line, token);
+            if (!white) number++;
+            white = !white;
+        }
+        append(out, line, game.getResult());
+        out.write(line.toString());
+        out.write("\n\n");
+    }
+
+    public static String toString(PgnGame game) {
+        StringWriter out = new StringWriter();
+        try {
+            write(game, out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toString();
+    }
+
+    private static void append(Writer out, StringBuilder line, String token) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + token.length() > LINE_WIDTH) {
+            out.write(line.toString());
+            out.write('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) line.append(' ');
+        line.append(token);
+    }
+
+    private static void writeTag(Writer out, String name, String value) throws IOException {
+        out.write("[" + name + " \"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"]\n");
+    }
+
+    private static boolean isRoster(String tag) {
+        for (String roster : ROSTER) {
+            if (roster.equals(tag)) return true;
+        }
+        return false;
+    }
+}
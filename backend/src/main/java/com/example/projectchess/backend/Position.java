@@ -0,0 +1,178 @@
+package com.example.projectchess.backend;
+
+/**
+ * An immutable snapshot of a {@link ChessBoard} position: pieces, side to move, castling rights,
+ * en passant square and the move counters. Take one with {@link ChessBoard#snapshot()}.
+ *
+ * A position never changes once made, so one published through a volatile field (or any other
+ * safe publication) can be read from any thread without locks or copying, while the board it
+ * came from goes on being played on. It takes 64 bytes for the pieces plus a few fields.
+ */
+public final class Position {
+    // Shared pieces, by Zobrist piece index (color * 6 + type); a square stores its index + 1.
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    // Castling right bits, in the order of Zobrist.CASTLING.
+    static final int WHITE_KING_SIDE = 1, WHITE_QUEEN_SIDE = 2, BLACK_KING_SIDE = 4, BLACK_QUEEN_SIDE = 8;
+
+    static {
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                ChessPiece piece = new ChessPiece(type, color);
+                PIECES[Zobrist.pieceIndex(piece)] = piece;
+            }
+        }
+    }
+
+    private final byte[] squares = new byte[64];
+    private final Color sideToMove;
+    private final int castling;
+    private final int enPassantSquare; // row * 8 + col, or -1
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long key;
+    // Built on first use. Racing threads may each build it, but always to the same string.
+    private String fen;
+
+    /**
+     * True if a pawn of the side to move stands next to the pawn that just pushed two squares.
+     * Only then is the en passant file part of the key (the Polyglot rule), so a double push no
+     * pawn can take leaves the key of the same position reached another way.
+     */
+    private static boolean canCaptureEnPassant(ChessPiece[][] board, int enPassantSquare, Color sideToMove) {
+        int row = enPassantSquare / 8 + (sideToMove == Color.WHITE ? 1 : -1), col = enPassantSquare % 8;
+        for (int c = col - 1; c <= col + 1; c += 2) {
+            if (c < 0 || c > 7) continue;
+            ChessPiece piece = board[row][c];
+            if (piece != null && piece.getType() == PieceType.PAWN && piece.getColor() == sideToMove) return true;
+        }
+        return false;
+    }
+
+    Position(ChessPiece[][] board, Color sideToMove, int castling, int enPassantSquare,
+             int halfmoveClock, int fullmoveNumber) {
+        long key = 0;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board[row][col];
+                if (piece == null) continue;
+                int index = Zobrist.pieceIndex(piece);
+                squares[row * 8 + col] = (byte) (index + 1);
+                key ^= Zobrist.PIECES[index][row * 8 + col];
+            }
+        }
+        if (sideToMove == Color.BLACK) key ^= Zobrist.BLACK_TO_MOVE;
+        for (int i = 0; i < 4; i++) {
+            if ((castling & 1 << i) != 0) key ^= Zobrist.CASTLING[i];
+        }
+        if (enPassantSquare != -1 && canCaptureEnPassant(board, enPassantSquare, sideToMove)) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare % 8];
+        }
+        this.sideToMove = sideToMove;
+        this.castling = castling;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.key = key;
+    }
+
+    public ChessPiece getPiece(int row, int col) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 8) return null;
+        int code = squares[row * 8 + col];
+        return code == 0 ? null : PIECES[code - 1];
+    }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    // Castling rights as WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE bits.
+    int getCastlingRights() {
+        return castling;
+    }
+
+    int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    /**
+     * Returns the position's Zobrist key; the same as {@link ChessBoard#zobristKey()} for the board it came from.
+     */
+    public long zobristKey() {
+        return key;
+    }
+
+    /**
+     * Returns the position in Forsyth-Edwards Notation.
+     */
+    public String toFen() {
+        String result = fen;
+        if (result == null) {
+            result = buildFen();
+            fen = result;
+        }
+        return result;
+    }
+
+    private String buildFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = getPiece(row, col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(fenLetter(piece));
+            }
+            if (empty > 0) fen.append(empty);
+            if (row < 7) fen.append('/');
+        }
+        fen.append(sideToMove == Color.WHITE ? " w " : " b ");
+
+        StringBuilder rights = new StringBuilder();
+        if ((castling & WHITE_KING_SIDE) != 0) rights.append('K');
+        if ((castling & WHITE_QUEEN_SIDE) != 0) rights.append('Q');
+        if ((castling & BLACK_KING_SIDE) != 0) rights.append('k');
+        if ((castling & BLACK_QUEEN_SIDE) != 0) rights.append('q');
+        fen.append(rights.length() == 0 ? "-" : rights);
+
+        if (enPassantSquare == -1) {
+            fen.append(" -");
+        } else {
+            fen.append(' ').append((char) ('a' + enPassantSquare % 8)).append(8 - enPassantSquare / 8);
+        }
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    private static char fenLetter(ChessPiece piece) {
+        char letter = switch (piece.getType()) {
+            case PAWN -> 'p';
+            case KNIGHT -> 'n';
+            case BISHOP -> 'b';
+            case ROOK -> 'r';
+            case QUEEN -> 'q';
+            case KING -> 'k';
+        };
+        return piece.getColor() == Color.WHITE ? Character.toUpperCase(letter) : letter;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -0,0 +1,327 @@
+package com.example.projectchess.backend;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Which archived games passed through a position: for every Zobrist key, the games that reached
+ * it and the ply at which they first did. Written by {@link PositionIndexBuilder}; memory-mapped
+ * and searched in place, so opening an index reads only the segment headers.
+ *
+ * An index is a directory of segment files, positions-NNNNNNNN.idx. Each build adds a segment for
+ * the games it was given and never rewrites the old ones; a lookup searches every segment.
+ * Segment layout:
+ *
+ *   header (64): magic (8) | blocks (8) | keys (8) | occurrences (8) | next game id (8) | source offset (8) | reserved (16)
+ *   directory:   per block, first key (8) | offset of the block in the data (8)
+ *   data:        blocks of up to BLOCK_KEYS keys in signed order, each key as
+ *                varint key delta | varint games | varint bytes | per game: varint game id delta | varint ply
+ *
+ * Varints are unsigned LEB128. Key deltas are from the previous key of the block (the first key is the
+ * directory's); game ids ascend within a key and are stored as deltas from the previous one. A lookup
+ * binary-searches the directory and decodes a single block.
+ */
+public class PositionIndex implements AutoCloseable {
+    static final byte[] MAGIC = "CHSPIDX1".getBytes(StandardCharsets.US_ASCII);
+    static final int HEADER_SIZE = 64;
+    static final int DIRECTORY_ENTRY_SIZE = 16;
+    static final int BLOCK_KEYS = 64;
+
+    private final List<Segment> segments;
+
+    /**
+     * One game that reached a position, and the ply (half-moves from its start) at which it first did.
+     */
+    public static final class Occurrence {
+        private final long gameId;
+        private final int ply;
+
+        Occurrence(long gameId, int ply) {
+            this.gameId = gameId;
+            this.ply = ply;
+        }
+
+        public long getGameId() {
+            return gameId;
+        }
+
+        public int getPly() {
+            return ply;
+        }
+
+        @Override
+        public String toString() {
+            return "game " + gameId + " ply " + ply;
+        }
+    }
+
+    public interface OccurrenceVisitor {
+        void visit(long gameId, int ply);
+    }
+
+    private PositionIndex(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Opens every segment in the directory; a directory that does not exist is an empty index.
+     */
+    public static PositionIndex open(Path directory) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try {
+            for (Path file : listSegments(directory)) {
+                segments.add(Segment.open(file));
+            }
+        } catch (IOException ex) {
+            for (Segment segment : segments) segment.close();
+            throw ex;
+        }
+        return new PositionIndex(segments);
+    }
+
+    /**
+     * Run with: java com.example.projectchess.backend.PositionIndex index-directory [fen] [--limit n]
+     * Prints how many indexed games reached the position (the start position if no FEN is given),
+     * the first of them and how long the lookup took.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = null;
+        String fen = null;
+        int limit = 20;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--limit")) limit = Integer.parseInt(args[++i]);
+            else if (directory == null) directory = Path.of(args[i]);
+            else fen = args[i];
+        }
+        if (directory == null) {
+            System.out.println("Usage: PositionIndex index-directory [fen] [--limit n]");
+            return;
+        }
+        ChessBoard board = new ChessBoard();
+        if (fen != null) board.loadFen(fen);
+        try (PositionIndex index = open(directory)) {
+            long start = System.nanoTime();
+            long count = index.count(board.zobristKey());
+            List<Occurrence> first = index.lookup(board.zobristKey(), limit);
+            long micros = (System.nanoTime() - start) / 1000;
+            System.out.printf("%,d games in %d segments reached %s (%d us)%n", count, index.segments.size(),
+                    board.toFen(), micros);
+            for (Occurrence occurrence : first) {
+                System.out.println("  " + occurrence);
+            }
+        }
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Returns one more than the highest game id in the index, where the next build numbers games from.
+     */
+    public long getNextGameId() {
+        long next = 0;
+        for (Segment segment : segments) next = Math.max(next, segment.nextGameId);
+        return next;
+    }
+
+    /**
+     * Returns how far the builds read into their source, as recorded by {@link PositionIndexBuilder#setSourceOffset}.
+     */
+    public long getSourceOffset() {
+        long offset = 0;
+        for (Segment segment : segments) offset = Math.max(offset, segment.sourceOffset);
+        return offset;
+    }
+
+    public long count(ChessBoard board) {
+        return count(board.zobristKey());
+    }
+
+    /**
+     * Returns the number of games that reached the position, without decoding their ids.
+     */
+    public long count(long key) {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.count(key);
+        }
+        return count;
+    }
+
+    public List<Occurrence> lookup(ChessBoard board, int limit) {
+        return lookup(board.zobristKey(), limit);
+    }
+
+    /**
+     * Returns up to limit games that reached the position: segment by segment, by game id within each.
+     */
+    public List<Occurrence> lookup(long key, int limit) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (occurrences.size() >= limit) break;
+            segment.forEach(key, limit - occurrences.size(), (game, ply) -> occurrences.add(new Occurrence(game, ply)));
+        }
+        return occurrences;
+    }
+
+    /**
+     * Calls the visitor for every game that reached the position.
+     */
+    public void forEach(long key, OccurrenceVisitor visitor) {
+        for (Segment segment : segments) {
+            segment.forEach(key, Long.MAX_VALUE, visitor);
+        }
+    }
+
+    static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("positions-%08d.idx", index));
+    }
+
+    static List<Path> listSegments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return List.of();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("positions-\\d{8}\\.idx")).sorted().toList();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Segment segment : segments) segment.close();
+    }
+
+    /**
+     * One segment file, mapped in chunks; a single MappedByteBuffer cannot exceed 2 GiB.
+     * Chunks are a multiple of 8 bytes, so the directory's longs never straddle two of them.
+     */
+    private static final class Segment {
+        private static final int CHUNK_BITS = 30;
+        private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+        private final FileChannel channel;
+        private final MappedByteBuffer[] chunks;
+        private final long blocks;
+        private final long dataStart, dataEnd;
+        private final long nextGameId, sourceOffset;
+
+        private Segment(FileChannel channel, MappedByteBuffer[] chunks, long blocks, long nextGameId, long sourceOffset) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.blocks = blocks;
+            this.dataStart = HEADER_SIZE + blocks * DIRECTORY_ENTRY_SIZE;
+            this.dataEnd = chunks.length == 0 ? dataStart : ((long) chunks.length - 1 << CHUNK_BITS)
+                    + chunks[chunks.length - 1].capacity();
+            this.nextGameId = nextGameId;
+            this.sourceOffset = sourceOffset;
+        }
+
+        static Segment open(Path file) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < HEADER_SIZE) throw new IOException("Truncated position index: " + file);
+                MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+                for (int i = 0; i < chunks.length; i++) {
+                    long start = (long) i << CHUNK_BITS;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_MASK + 1, size - start));
+                    chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+                }
+                MappedByteBuffer header = chunks[0];
+                for (int i = 0; i < MAGIC.length; i++) {
+                    if (header.get(i) != MAGIC[i]) throw new IOException("Not a position index: " + file);
+                }
+                long blocks = header.getLong(8);
+                if (size < HEADER_SIZE + blocks * DIRECTORY_ENTRY_SIZE) {
+                    throw new IOException("Truncated position index: " + file);
+                }
+                return new Segment(channel, chunks, blocks, header.getLong(32), header.getLong(40));
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Returns a cursor at the key's game count, or null if the segment does not have the key.
+         */
+        Cursor find(long key) {
+            // The last block whose first key is not above the key.
+            long low = 0, high = blocks;
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (getLong(HEADER_SIZE + mid * DIRECTORY_ENTRY_SIZE) <= key) low = mid + 1;
+                else high = mid;
+            }
+            if (low == 0) return null;
+            long block = low - 1;
+            long entryKey = getLong(HEADER_SIZE + block * DIRECTORY_ENTRY_SIZE);
+            long end = block + 1 < blocks
+                    ? dataStart + getLong(HEADER_SIZE + (block + 1) * DIRECTORY_ENTRY_SIZE + 8) : dataEnd;
+            Cursor cursor = new Cursor(dataStart + getLong(HEADER_SIZE + block * DIRECTORY_ENTRY_SIZE + 8));
+            while (cursor.position < end) {
+                entryKey += cursor.next();
+                if (entryKey == key) return cursor;
+                if (entryKey > key) return null;
+                cursor.next(); // games
+                long bytes = cursor.next();
+                cursor.position += bytes;
+            }
+            return null;
+        }
+
+        long count(long key) {
+            Cursor cursor = find(key);
+            return cursor == null ? 0 : cursor.next();
+        }
+
+        void forEach(long key, long limit, OccurrenceVisitor visitor) {
+            Cursor cursor = find(key);
+            if (cursor == null) return;
+            long games = Math.min(cursor.next(), limit);
+            cursor.next(); // bytes
+            long game = 0;
+            for (long i = 0; i < games; i++) {
+                game += cursor.next();
+                visitor.visit(game, (int) cursor.next());
+            }
+        }
+
+        private long getLong(long position) {
+            return chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & CHUNK_MASK));
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+
+        /**
+         * Reads varints from a position in the segment onwards.
+         */
+        private final class Cursor {
+            private long position;
+
+            Cursor(long position) {
+                this.position = position;
+            }
+
+            long next() {
+                long value = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = chunks[(int) (position >>> CHUNK_BITS)].get((int) (position & CHUNK_MASK));
+                    position++;
+                    value |= (long) (b & 0x7F) << shift;
+                    if (b >= 0) return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,604 @@
+package com.example.projectchess.backend;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Adds a segment to a {@link PositionIndex}. Every position of every game is recorded as
+ * (Zobrist key, game id, ply) in a buffer; full buffers are sorted and spilled to run files, and
+ * the runs are merged into the segment, so memory use is bounded by the buffers rather than the
+ * number of games. Both phases use all cores: PGN files are read in chunks, one buffer per chunk,
+ * and the merge splits the key space into one range per thread and joins the ranges at the end.
+ *
+ * Games from PGN files are numbered in file order, from the index's next game id. Callers with
+ * ids of their own, such as the server's journal, pass games to {@link #addGame} instead.
+ *
+ * Run with: java com.example.projectchess.backend.PositionIndexBuilder index-directory games.pgn... [--threads n]
+ */
+public class PositionIndexBuilder {
+    // Occurrences per buffer, 16 bytes each; a full buffer becomes one run file.
+    private static final int RUN_OCCURRENCES = 1 << 21;
+    // A run stores game << PLY_BITS | ply; later plies of longer games are not indexed.
+    private static final int PLY_BITS = 16;
+    private static final int MAX_PLY = (1 << PLY_BITS) - 1;
+    // Chunks per thread when reading PGN, so threads that finish early pick up more work.
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final int threads;
+    private final Path workDirectory;
+    private final AtomicInteger runNumber = new AtomicInteger();
+    private final List<Run> runs = new ArrayList<>();
+    private Batch direct; // games added with their own ids
+    private long nextGameId;
+    private long sourceOffset;
+    private long gamesRead, gamesSkipped;
+    private long keysWritten, occurrencesWritten;
+
+    private record Run(Path file, Batch batch) {
+    }
+
+    public PositionIndexBuilder(long firstGameId, int threads, Path workDirectory) {
+        this.nextGameId = firstGameId;
+        this.threads = threads;
+        this.workDirectory = workDirectory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path directory = null;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else if (directory == null) directory = Path.of(args[i]);
+            else inputs.add(Path.of(args[i]));
+        }
+        if (directory == null || inputs.isEmpty()) {
+            System.out.println("Usage: PositionIndexBuilder index-directory games.pgn... [--threads n]");
+            return;
+        }
+        long start = System.nanoTime();
+        long firstGameId;
+        try (PositionIndex index = PositionIndex.open(directory)) {
+            firstGameId = index.getNextGameId();
+        }
+        Path work = Files.createTempDirectory("position-runs");
+        try {
+            PositionIndexBuilder builder = new PositionIndexBuilder(firstGameId, threads, work);
+            for (Path input : inputs) {
+                long first = builder.addGames(input);
+                System.out.printf("%s: games %,d to %,d%n", input, first, builder.getNextGameId() - 1);
+            }
+            Path segment = builder.write(directory);
+            System.out.printf("Read %,d games (%,d skipped), wrote %,d positions with %,d occurrences to %s in %d ms%n",
+                    builder.gamesRead, builder.gamesSkipped, builder.keysWritten, builder.occurrencesWritten,
+                    segment, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            deleteDirectory(work);
+        }
+    }
+
+    // Deletes a work directory and whatever runs a failed build left in it.
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    public synchronized long getNextGameId() {
+        return nextGameId;
+    }
+
+    /**
+     * Records how far into its source this build has read, for the next build to carry on from;
+     * see {@link PositionIndex#getSourceOffset()}.
+     */
+    public synchronized void setSourceOffset(long sourceOffset) {
+        this.sourceOffset = sourceOffset;
+    }
+
+    /**
+     * Adds every game of a PGN file, using all cores, and returns the id of its first game.
+     * A game with an unreadable start position still takes an id; one with an illegal move is
+     * indexed up to that move.
+     */
+    public long addGames(Path pgn) throws IOException {
+        long[] bounds = PgnReader.splitAtGames(pgn, threads * CHUNKS_PER_THREAD);
+        List<Batch> batches = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i], end = bounds[i + 1];
+                if (start == end) continue;
+                Batch batch = new Batch();
+                batches.add(batch);
+                chunks.add(executor.submit(() -> readChunk(pgn, start, end, batch)));
+            }
+            long skipped = 0;
+            for (Future<Long> chunk : chunks) {
+                skipped += chunk.get();
+            }
+            synchronized (this) {
+                gamesSkipped += skipped;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while indexing " + pgn, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            if (ex.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw new IOException("Failed to index " + pgn, ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        // Now that every chunk's game count is known, number its games after the previous chunk's.
+        synchronized (this) {
+            long first = nextGameId;
+            for (Batch batch : batches) {
+                batch.firstGameId = nextGameId;
+                nextGameId += batch.games;
+                gamesRead += batch.games;
+            }
+            return first;
+        }
+    }
+
+    // Indexes one chunk of a PGN file, numbering its games from 0. Returns the number skipped.
+    private long readChunk(Path pgn, long start, long end, Batch batch) throws IOException {
+        long skipped = 0;
+        try (PgnReader reader = PgnReader.open(pgn, start, end)) {
+            for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                long number = batch.games++;
+                ChessBoard board;
+                try {
+                    board = game.startBoard();
+                } catch (IllegalArgumentException ex) {
+                    skipped++;
+                    continue;
+                }
+                batch.add(board.zobristKey(), number, 0);
+                int ply = 0;
+                for (String san : game.getMoves()) {
+                    if (ply == MAX_PLY || !San.play(board, san)) break;
+                    batch.add(board.zobristKey(), number, ++ply);
+                }
+            }
+        }
+        batch.finish();
+        return skipped;
+    }
+
+    /**
+     * Adds one game under its own id, given the keys of its positions in order, the start position
+     * first. Calls are serialized; a game id must not be added twice.
+     */
+    public synchronized void addGame(long gameId, long[] keys, int count) throws IOException {
+        if (direct == null) direct = new Batch();
+        for (int ply = 0; ply < Math.min(count, MAX_PLY + 1); ply++) {
+            direct.add(keys[ply], gameId, ply);
+        }
+        nextGameId = Math.max(nextGameId, gameId + 1);
+        gamesRead++;
+    }
+
+    /**
+     * Merges everything added into a new segment in the index directory and returns its file,
+     * or null if no games were added. The segment appears under its final name only once complete.
+     */
+    public synchronized Path write(Path directory) throws IOException {
+        if (direct != null) {
+            direct.finish();
+            direct = null;
+        }
+        if (gamesRead == 0) return null;
+        Files.createDirectories(directory);
+        List<Path> existing = PositionIndex.listSegments(directory);
+        int number = existing.isEmpty() ? 0
+                : Integer.parseInt(existing.get(existing.size() - 1).getFileName().toString().substring(10, 18)) + 1;
+        Path output = PositionIndex.segmentPath(directory, number);
+        Path temporary = directory.resolve(output.getFileName() + ".tmp");
+
+        List<MappedRun> mapped = new ArrayList<>();
+        for (Run run : runs) {
+            mapped.add(new MappedRun(run));
+        }
+        // Zobrist keys are uniform, so equal slices of the key space hold about equal work.
+        int parts = threads;
+        long step = Long.divideUnsigned(-1L, parts);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Part> merged = new ArrayList<>();
+        try {
+            List<Future<Part>> futures = new ArrayList<>();
+            for (int i = 0; i < parts; i++) {
+                long low = Long.MIN_VALUE + step * i;
+                long high = i + 1 < parts ? Long.MIN_VALUE + step * (i + 1) : Long.MAX_VALUE;
+                boolean last = i + 1 == parts;
+                int index = i;
+                futures.add(executor.submit(() -> merge(mapped, low, high, last, index)));
+            }
+            for (Future<Part> future : futures) {
+                merged.add(future.get());
+            }
+            writeSegment(temporary, merged);
+            Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing " + output, ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) throw io;
+            throw new IOException("Failed to write " + output, ex.getCause());
+        } finally {
+            executor.shutdown();
+            for (Part part : merged) part.delete();
+            for (Run run : runs) Files.deleteIfExists(run.file());
+            runs.clear();
+            Files.deleteIfExists(temporary);
+        }
+        return output;
+    }
+
+    // Merges the occurrences of keys in [low, high) (up to and including high for the last range) from every run.
+    private Part merge(List<MappedRun> mapped, long low, long high, boolean last, int index) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>();
+        for (MappedRun run : mapped) {
+            RunCursor cursor = new RunCursor(run, run.lowerBound(low), high, last);
+            if (cursor.advance()) queue.add(cursor);
+        }
+        Part part = new Part(workDirectory.resolve("part-" + index + ".data"), workDirectory.resolve("part-" + index + ".dir"));
+        try {
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                part.add(cursor.key, cursor.game, cursor.ply);
+                if (cursor.advance()) queue.add(cursor);
+            }
+        } finally {
+            part.close();
+        }
+        return part;
+    }
+
+    // Writes the header, then every part's directory with its offsets moved past the earlier parts' data, then the data.
+    private void writeSegment(Path file, List<Part> parts) throws IOException {
+        long blocks = 0, keys = 0, occurrences = 0;
+        for (Part part : parts) {
+            blocks += part.blocks;
+            keys += part.keys;
+            occurrences += part.occurrences;
+        }
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(PositionIndex.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(PositionIndex.MAGIC).putLong(blocks).putLong(keys).putLong(occurrences)
+                    .putLong(nextGameId).putLong(sourceOffset);
+            writeFully(out, header.rewind()); // all of it, with the reserved bytes zero
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            long dataOffset = 0;
+            for (Part part : parts) {
+                try (FileChannel in = FileChannel.open(part.directory, StandardOpenOption.READ)) {
+                    while (true) {
+                        // Whole entries only: the buffer is a multiple of their size, and so is the file.
+                        buffer.clear();
+                        while (buffer.hasRemaining() && in.read(buffer) > 0) {
+                        }
+                        if (buffer.position() == 0) break;
+                        buffer.flip();
+                        for (int i = 8; i < buffer.limit(); i += PositionIndex.DIRECTORY_ENTRY_SIZE) {
+                            buffer.putLong(i, buffer.getLong(i) + dataOffset);
+                        }
+                        writeFully(out, buffer);
+                    }
+                }
+                dataOffset += part.bytes;
+            }
+            for (Part part : parts) {
+                try (FileChannel in = FileChannel.open(part.data, StandardOpenOption.READ)) {
+                    long position = 0, size = in.size();
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+            out.force(true);
+        }
+        keysWritten = keys;
+        occurrencesWritten = occurrences;
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * The occurrences of one stream of games: a PGN chunk, whose games are numbered from 0 until
+     * the chunk's place in its file is known, or the games added with their own ids.
+     */
+    private final class Batch {
+        private long[] keys, values;
+        private int size;
+        long games;
+        // Added to the game numbers of this batch's runs when they are merged.
+        long firstGameId;
+
+        void add(long key, long game, int ply) throws IOException {
+            if (keys == null) {
+                keys = new long[RUN_OCCURRENCES];
+                values = new long[RUN_OCCURRENCES];
+            }
+            if (size == keys.length) spill();
+            keys[size] = key;
+            values[size++] = game << PLY_BITS | ply;
+        }
+
+        // Spills what is left and frees the buffers.
+        void finish() throws IOException {
+            spill();
+            keys = values = null;
+        }
+
+        // Writes the buffer to a run file sorted by key, game and ply.
+        private void spill() throws IOException {
+            if (size == 0) return;
+            sort(keys, values, 0, size);
+            Path file = workDirectory.resolve("run-" + runNumber.getAndIncrement() + ".bin");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+                ByteBuffer record = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < size; i++) {
+                    record.clear();
+                    record.putLong(keys[i]).putLong(values[i]);
+                    out.write(record.array());
+                }
+            }
+            synchronized (PositionIndexBuilder.this) {
+                runs.add(new Run(file, this));
+            }
+            size = 0;
+        }
+    }
+
+    // Sorts the pairs (keys[i], values[i]) by key, then value.
+    static void sort(long[] keys, long[] values, int from, int to) {
+        while (to - from > 16) {
+            // Median of three as the pivot, so runs of sorted input do not go quadratic.
+            int a = from, b = (from + to) >>> 1, c = to - 1;
+            if (compare(keys, values, b, a) < 0) swap(keys, values, a, b);
+            if (compare(keys, values, c, b) < 0) swap(keys, values, b, c);
+            if (compare(keys, values, b, a) < 0) swap(keys, values, a, b);
+            long pivotKey = keys[b], pivotValue = values[b];
+            int i = from, j = to - 1;
+            while (i <= j) {
+                while (keys[i] < pivotKey || keys[i] == pivotKey && values[i] < pivotValue) i++;
+                while (keys[j] > pivotKey || keys[j] == pivotKey && values[j] > pivotValue) j--;
+                if (i <= j) swap(keys, values, i++, j--);
+            }
+            // Recurse into the smaller side and loop on the larger one.
+            if (j - from < to - i) {
+                sort(keys, values, from, j + 1);
+                from = i;
+            } else {
+                sort(keys, values, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(keys, values, j, j - 1) < 0; j--) {
+                swap(keys, values, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(long[] keys, long[] values, int i, int j) {
+        int byKey = Long.compare(keys[i], keys[j]);
+        return byKey != 0 ? byKey : Long.compare(values[i], values[j]);
+    }
+
+    private static void swap(long[] keys, long[] values, int i, int j) {
+        long key = keys[i], value = values[i];
+        keys[i] = keys[j];
+        values[i] = values[j];
+        keys[j] = key;
+        values[j] = value;
+    }
+
+    /**
+     * A run file mapped for reading; one merge thread per key range reads it through its own cursor.
+     */
+    private static final class MappedRun {
+        private final MappedByteBuffer buffer;
+        private final long firstGameId;
+        private final int size;
+
+        MappedRun(Run run) throws IOException {
+            try (FileChannel channel = FileChannel.open(run.file(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                size = (int) (channel.size() / 16);
+            }
+            firstGameId = run.batch().firstGameId;
+        }
+
+        long keyAt(int index) {
+            return buffer.getLong(index * 16);
+        }
+
+        // Index of the first record whose key is not below the given one.
+        int lowerBound(long key) {
+            int low = 0, high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keyAt(mid) < key) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+
+    private static final class RunCursor implements Comparable<RunCursor> {
+        private final MappedRun run;
+        private final long high;
+        private final boolean last;
+        private int next;
+        long key, game;
+        int ply;
+
+        RunCursor(MappedRun run, int start, long high, boolean last) {
+            this.run = run;
+            this.next = start;
+            this.high = high;
+            this.last = last;
+        }
+
+        // Moves to the next record of the key range; false at its end.
+        boolean advance() {
+            if (next >= run.size) return false;
+            key = run.keyAt(next);
+            if (!last && key >= high) return false;
+            long value = run.buffer.getLong(next * 16 + 8);
+            game = run.firstGameId + (value >>> PLY_BITS);
+            ply = (int) (value & MAX_PLY);
+            next++;
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunCursor other) {
+            if (key != other.key) return Long.compare(key, other.key);
+            if (game != other.game) return Long.compare(game, other.game);
+            return Integer.compare(ply, other.ply);
+        }
+    }
+
+    /**
+     * The blocks of one key range, in a data file and a directory file whose offsets start at 0.
+     */
+    private static final class Part {
+        final Path data, directory;
+        private final OutputStream dataOut, directoryOut;
+        private final ByteBuffer entry = ByteBuffer.allocate(PositionIndex.DIRECTORY_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long blocks, keys, occurrences, bytes;
+        private int keysInBlock;
+        private long previousKey;
+
+        // The key being collected, with its games so far encoded in gameBytes.
+        private boolean hasKey;
+        private long key, lastGame, gameCount;
+        private final Bytes gameBytes = new Bytes();
+
+        Part(Path data, Path directory) throws IOException {
+            this.data = data;
+            this.directory = directory;
+            dataOut = new BufferedOutputStream(Files.newOutputStream(data), 1 << 16);
+            directoryOut = new BufferedOutputStream(Files.newOutputStream(directory), 1 << 16);
+        }
+
+        // Occurrences arrive sorted by key, game and ply; only a game's first ply at a key is kept.
+        void add(long key, long game, int ply) throws IOException {
+            if (hasKey && key == this.key) {
+                if (game == lastGame) return;
+                gameBytes.writeVarint(game - lastGame);
+            } else {
+                if (hasKey) writeKey();
+                hasKey = true;
+                this.key = key;
+                gameCount = 0;
+                gameBytes.reset();
+                gameBytes.writeVarint(game);
+            }
+            gameBytes.writeVarint(ply);
+            lastGame = game;
+            gameCount++;
+        }
+
+        private void writeKey() throws IOException {
+            if (blocks == 0 || keysInBlock == PositionIndex.BLOCK_KEYS) {
+                entry.clear();
+                entry.putLong(key).putLong(bytes);
+                directoryOut.write(entry.array());
+                blocks++;
+                keysInBlock = 0;
+                previousKey = key;
+            }
+            bytes += writeVarint(dataOut, key - previousKey);
+            bytes += writeVarint(dataOut, gameCount);
+            bytes += writeVarint(dataOut, gameBytes.size);
+            dataOut.write(gameBytes.array, 0, gameBytes.size);
+            bytes += gameBytes.size;
+            previousKey = key;
+            keysInBlock++;
+            keys++;
+            occurrences += gameCount;
+        }
+
+        void close() throws IOException {
+            try {
+                if (hasKey) writeKey();
+                hasKey = false;
+            } finally {
+                dataOut.close();
+                directoryOut.close();
+            }
+        }
+
+        void delete() throws IOException {
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    // Writes an unsigned LEB128 varint and returns its length.
+    private static int writeVarint(OutputStream out, long value) throws IOException {
+        int length = 1;
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+            length++;
+        }
+        out.write((int) value);
+        return length;
+    }
+
+    /**
+     * A growable byte array, for the encoded games of the key being collected.
+     */
+    private static final class Bytes {
+        byte[] array = new byte[256];
+        int size;
+
+        void writeVarint(long value) {
+            if (size + 10 > array.length) array = Arrays.copyOf(array, array.length * 2);
+            while ((value & ~0x7FL) != 0) {
+                array[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            array[size++] = (byte) value;
+        }
+
+        void reset() {
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.projectchess.backend;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Standard Algebraic Notation (e4, Nbd7, exd5, O-O, e8=Q+) for moves on a {@link ChessBoard}.
+ * Files a-h are columns 0-7; rank 8 is row 0 and rank 1 is row 7.
+ */
+public final class San {
+    private static final Pattern MOVE = Pattern.compile("([NBRQK])?([a-h])?([1-8])?x?([a-h][1-8])(?:=?([NBRQ]))?");
+
+    private San() {
+    }
+
+    /**
+     * Returns the SAN of a legal move for the side to move, including the check or mate suffix.
+     * Must be called before the move is made.
+     */
+    public static String toSan(ChessBoard board, int sRow, int sCol, int eRow, int eCol, PieceType promotion) {
+        ChessPiece piece = board.getPiece(sRow, sCol);
+        StringBuilder san = new StringBuilder();
+        if (piece.getType() == PieceType.KING && Math.abs(eCol - sCol) == 2) {
+            san.append(eCol > sCol ? "O-O" : "O-O-O");
+        } else {
+            boolean capture = board.getPiece(eRow, eCol) != null
+                    || (piece.getType() == PieceType.PAWN && sCol != eCol);
+            if (piece.getType() == PieceType.PAWN) {
+                if (capture) san.append(file(sCol));
+            } else {
+                san.append(letter(piece.getType()));
+                san.append(disambiguation(board, piece, sRow, sCol, eRow, eCol));
+            }
+            if (capture) san.append('x');
+            san.append(file(eCol)).append(rank(eRow));
+            if (piece.getType() == PieceType.PAWN && (eRow == 0 || eRow == 7)) {
+                san.append('=').append(letter(promotion == null ? PieceType.QUEEN : promotion));
+            }
+        }
+
+        ChessBoard after = new ChessBoard(board);
+        after.movePiece(sRow, sCol, eRow, eCol, piece.getColor(), promotion == null ? PieceType.QUEEN : promotion);
+        Color opponent = (piece.getColor() == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        if (after.isKingInCheck(opponent)) {
+            san.append(after.hasLegalMoves(opponent) ? '+' : '#');
+        }
+        return san.toString();
+    }
+
+    /**
+     * Finds the legal move for the side to move that a SAN string describes.
+     * Returns {sRow, sCol, eRow, eCol, promotion ordinal}, or null if no single legal move matches.
+     */
+    public static int[] parse(ChessBoard board, String san) {
+        Color turn = board.getSideToMove();
+        String text = san.replaceAll("[+#!?]", "");
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int row = (turn == Color.WHITE) ? 7 : 0;
+            int eCol = text.length() == 3 ? 6 : 2;
+            ChessPiece king = board.getPiece(row, 4);
+            if (king == null || king.getType() != PieceType.KING || king.getColor() != turn
+                    || !isLegal(board, row, 4, row, eCol)) {
+                return null;
+            }
+            return new int[]{row, 4, row, eCol, PieceType.QUEEN.ordinal()};
+        }
+
+        Matcher m = MOVE.matcher(text);
+        if (!m.matches()) return null;
+        PieceType type = m.group(1) == null ? PieceType.PAWN : pieceType(m.group(1).charAt(0));
+        int fromCol = m.group(2) == null ? -1 : m.group(2).charAt(0) - 'a';
+        int fromRow = m.group(3) == null ? -1 : 8 - (m.group(3).charAt(0) - '0');
+        int eCol = m.group(4).charAt(0) - 'a';
+        int eRow = 8 - (m.group(4).charAt(1) - '0');
+        PieceType promotion = m.group(5) == null ? PieceType.QUEEN : pieceType(m.group(5).charAt(0));
+
+        int[] found = null;
+        for (int row = 0; row < 8; row++) {
+            if (fromRow != -1 && row != fromRow) continue;
+            for (int col = 0; col < 8; col++) {
+                if (fromCol != -1 && col != fromCol) continue;
+                ChessPiece piece = board.getPiece(row, col);
+                if (piece == null || piece.getColor() != turn || piece.getType() != type) continue;
+                if (isLegal(board, row, col, eRow, eCol)) {
+                    if (found != null) return null; // ambiguous
+                    found = new int[]{row, col, eRow, eCol, promotion.ordinal()};
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Parses a SAN move and plays it on the board. Returns false if it is not a legal move.
+     */
+    public static boolean play(ChessBoard board, String san) {
+        int[] move = parse(board, san);
+        return move != null && board.movePiece(move[0], move[1], move[2], move[3],
+                board.getSideToMove(), PieceType.values()[move[4]]);
+    }
+
+    public static String square(int row, int col) {
+        return "" + file(col) + rank(row);
+    }
+
+    private static String disambiguation(ChessBoard board, ChessPiece piece, int sRow, int sCol, int eRow, int eCol) {
+        boolean ambiguous = false, sameFile = false, sameRank = false;
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (row == sRow && col == sCol) continue;
+                ChessPiece other = board.getPiece(row, col);
+                if (other == null || other.getType() != piece.getType() || other.getColor() != piece.getColor()) continue;
+                if (isLegal(board, row, col, eRow, eCol)) {
+                    ambiguous = true;
+                    sameFile |= col == sCol;
+                    sameRank |= row == sRow;
+                }
+            }
+        }
+        if (!ambiguous) return "";
+        if (!sameFile) return String.valueOf(file(sCol));
+        if (!sameRank) return String.valueOf(rank(sRow));
+        return square(sRow, sCol);
+    }
+
+    private static boolean isLegal(ChessBoard board, int sRow, int sCol, int eRow, int eCol) {
+        List<int[]> moves = board.getLegalMoves(sRow, sCol);
+        for (int[] move : moves) {
+            if (move[0] == eRow && move[1] == eCol) return true;
+        }
+        return false;
+    }
+
+    private static char file(int col) {
+        return (char) ('a' + col);
+    }
+
+    private static char rank(int row) {
+        return (char) ('8' - row);
+    }
+
+    private static char letter(PieceType type) {
+        return switch (type) {
+            case KNIGHT -> 'N';
+            case BISHOP -> 'B';
+            case ROOK -> 'R';
+            case QUEEN -> 'Q';
+            case KING -> 'K';
+            case PAWN -> 'P';
+        };
+    }
+
+    private static PieceType pieceType(char letter) {
+        return switch (letter) {
+            case 'N' -> PieceType.KNIGHT;
+            case 'B' -> PieceType.BISHOP;
+            case 'R' -> PieceType.ROOK;
+            case 'Q' -> PieceType.QUEEN;
+            default -> PieceType.KING;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.projectchess.backend;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one {@link Engine#analyze} call, from start until it finishes or is cancelled.
+ */
+@Name("com.example.projectchess.Search")
+@Label("Search")
+@Category({"Chess", "Engine"})
+@Description("An engine search of one position")
+class SearchEvent extends jdk.jfr.Event {
+    @Label("Position")
+    String fen;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Score")
+    @Description("Centipawns from White's point of view at the last completed depth")
+    int score;
+}
@@ -0,0 +1,412 @@
+package com.example.projectchess.backend;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Probes endgame tables written by {@link TablebaseGenerator}: win/draw/loss and distance to mate
+ * for pawnless endings of up to five pieces, kings included.
+ *
+ * A table holds one byte per position and side to move:
+ *   0         draw
+ *   1..126    the side to move mates in that many moves
+ *   -1..-127  the side to move is mated in (-value - 1) moves; -1 means it is already mated
+ *
+ * Positions are indexed with the stronger side's king moved into the a8-a5-d5 triangle by the
+ * board's eight symmetries, so each table stores 10 * 64^(pieces - 1) positions per side.
+ * Files are split into 4 KiB blocks compressed separately; a probe maps the file and inflates
+ * one block, and recently used blocks are cached per thread.
+ */
+public class Tablebase {
+    public static final int MAX_PIECES = 5;
+    static final byte ILLEGAL = -128;
+    static final int BLOCK_SIZE = 4096;
+    static final byte[] MAGIC = "CHSTB001".getBytes(StandardCharsets.US_ASCII);
+    static final String EXTENSION = ".ctb";
+    // Order of non-king pieces inside a material signature, strongest first.
+    static final PieceType[] MATERIAL_ORDER = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    // Squares (row * 8 + col) of the king triangle, and each square's position in it (-1 outside).
+    static final int[] TRIANGLE_SQUARES = new int[10];
+    static final int[] TRIANGLE_INDEX = new int[64];
+
+    private static final int CACHED_BLOCKS = 256;
+    private static final ThreadLocal<Map<Long, byte[]>> BLOCK_CACHE = ThreadLocal.withInitial(() ->
+            new LinkedHashMap<>(CACHED_BLOCKS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                    return size() > CACHED_BLOCKS;
+                }
+            });
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+    private static volatile Tablebase defaultTablebase;
+
+    static {
+        int n = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int x = sq % 8, y = sq / 8;
+            if (x <= 3 && y <= 3 && x <= y) {
+                TRIANGLE_INDEX[sq] = n;
+                TRIANGLE_SQUARES[n++] = sq;
+            } else {
+                TRIANGLE_INDEX[sq] = -1;
+            }
+        }
+    }
+
+    public enum Outcome {
+        WIN, DRAW, LOSS
+    }
+
+    /**
+     * A probe result from the point of view of the side to move.
+     */
+    public static final class Result {
+        private final Outcome outcome;
+        private final int movesToMate;
+
+        Result(Outcome outcome, int movesToMate) {
+            this.outcome = outcome;
+            this.movesToMate = movesToMate;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        // Moves until mate for a win or loss; 0 for a draw or if the side to move is already mated.
+        public int getMovesToMate() {
+            return movesToMate;
+        }
+
+        @Override
+        public String toString() {
+            return switch (outcome) {
+                case WIN -> "win, mate in " + movesToMate;
+                case LOSS -> movesToMate == 0 ? "checkmated" : "loss, mated in " + movesToMate;
+                case DRAW -> "draw";
+            };
+        }
+    }
+
+    private final Path directory;
+    private final Map<String, Optional<Table>> tables = new ConcurrentHashMap<>();
+
+    public Tablebase(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the tablebase in the directory named by the "chess.tablebases" system property
+     * (default "tablebases"), or null if that directory does not exist.
+     */
+    public static Tablebase getDefault() {
+        if (defaultTablebase == null) {
+            Path directory = Path.of(System.getProperty("chess.tablebases", "tablebases"));
+            if (!Files.isDirectory(directory)) return null;
+            defaultTablebase = new Tablebase(directory);
+        }
+        return defaultTablebase;
+    }
+
+    /**
+     * Looks the position up. Returns null if it is not covered: pawns, castling rights,
+     * more than five pieces, or no table file for its material.
+     */
+    public Result probe(ChessBoard board) {
+        if (board.hasCastlingRights()) return null;
+        List<ChessPiece> pieces = new ArrayList<>();
+        List<Integer> squares = new ArrayList<>();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.getPiece(row, col);
+                if (piece == null) continue;
+                if (piece.getType() == PieceType.PAWN || pieces.size() == MAX_PIECES) return null;
+                pieces.add(piece);
+                squares.add(row * 8 + col);
+            }
+        }
+        PieceType[] types = new PieceType[pieces.size()];
+        Color[] colors = new Color[pieces.size()];
+        int[] sq = new int[pieces.size()];
+        for (int i = 0; i < sq.length; i++) {
+            types[i] = pieces.get(i).getType();
+            colors[i] = pieces.get(i).getColor();
+            sq[i] = squares.get(i);
+        }
+        int value;
+        try {
+            value = probe(types, colors, sq, board.getSideToMove());
+        } catch (IOException ex) {
+            return null;
+        }
+        if (value == Integer.MIN_VALUE || value == ILLEGAL) return null;
+        if (value > 0) return new Result(Outcome.WIN, value);
+        if (value < 0) return new Result(Outcome.LOSS, -value - 1);
+        return new Result(Outcome.DRAW, 0);
+    }
+
+    /**
+     * Probes a position given as a piece list in any order. Returns the stored byte value,
+     * 0 for bare kings, or Integer.MIN_VALUE if there is no table for the material.
+     */
+    int probe(PieceType[] types, Color[] colors, int[] squares, Color sideToMove) throws IOException {
+        List<Integer> white = new ArrayList<>(), black = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            (colors[i] == Color.WHITE ? white : black).add(i);
+        }
+        PieceOrder order = new PieceOrder(types);
+        white.sort(order);
+        black.sort(order);
+        if (white.size() + black.size() == 2) return 0;
+
+        // Tables are stored with the stronger side as "white"; without pawns, swapping colors needs no mirroring.
+        List<PieceType> whiteTypes = typesOf(white, types), blackTypes = typesOf(black, types);
+        boolean swap = !isCanonical(whiteTypes, blackTypes);
+        List<Integer> strong = swap ? black : white, weak = swap ? white : black;
+        Color strongColor = swap ? Color.BLACK : Color.WHITE;
+        String name = swap ? materialName(blackTypes, whiteTypes) : materialName(whiteTypes, blackTypes);
+
+        Table table = table(name);
+        if (table == null) return Integer.MIN_VALUE;
+        int[] ordered = new int[types.length];
+        int n = 0;
+        for (int i : strong) ordered[n++] = squares[i];
+        for (int i : weak) ordered[n++] = squares[i];
+        return table.get(sideToMove == strongColor ? 0 : 1, index(ordered));
+    }
+
+    private Table table(String name) throws IOException {
+        Optional<Table> table = tables.get(name);
+        if (table == null) {
+            Path file = directory.resolve(name + EXTENSION);
+            table = Files.exists(file) ? Optional.of(Table.open(file)) : Optional.empty();
+            tables.put(name, table);
+        }
+        return table.orElse(null);
+    }
+
+    // ------------------- Material and indexing, shared with the generator -------------------
+
+    /**
+     * Returns the material signature of a table, e.g. "KQvKR". Piece lists exclude the kings
+     * and must be in {@link #MATERIAL_ORDER}.
+     */
+    static String materialName(List<PieceType> white, List<PieceType> black) {
+        StringBuilder name = new StringBuilder("K");
+        for (PieceType type : white) name.append(letter(type));
+        name.append("vK");
+        for (PieceType type : black) name.append(letter(type));
+        return name.toString();
+    }
+
+    // A material is stored as is if white is at least as strong as black.
+    static boolean isCanonical(List<PieceType> white, List<PieceType> black) {
+        int w = materialValue(white), b = materialValue(black);
+        if (w != b) return w > b;
+        return materialName(white, List.of()).compareTo(materialName(black, List.of())) <= 0;
+    }
+
+    /**
+     * Parses a signature such as "KRBvKR" into the table's piece order: white king, white pieces,
+     * black king, black pieces.
+     */
+    static PieceType[] parseMaterial(String name) {
+        String[] sides = name.split("v");
+        if (sides.length != 2 || !sides[0].startsWith("K") || !sides[1].startsWith("K")) {
+            throw new IllegalArgumentException("Invalid material: " + name);
+        }
+        List<PieceType> types = new ArrayList<>();
+        for (String side : sides) {
+            for (char c : side.toCharArray()) {
+                types.add(switch (c) {
+                    case 'K' -> PieceType.KING;
+                    case 'Q' -> PieceType.QUEEN;
+                    case 'R' -> PieceType.ROOK;
+                    case 'B' -> PieceType.BISHOP;
+                    case 'N' -> PieceType.KNIGHT;
+                    default -> throw new IllegalArgumentException("Invalid material: " + name);
+                });
+            }
+        }
+        return types.toArray(new PieceType[0]);
+    }
+
+    static long entriesPerSide(int pieces) {
+        return 10L << (6 * (pieces - 1));
+    }
+
+    /**
+     * Index of a position whose squares are in table order. The symmetry that brings the
+     * first king into the triangle is applied to every square.
+     */
+    static long index(int[] squares) {
+        int king = squares[0];
+        int x = king % 8, y = king / 8;
+        boolean flipX = x > 3, flipY = y > 3;
+        if (flipX) x = 7 - x;
+        if (flipY) y = 7 - y;
+        boolean transpose = x > y;
+        long index = 0;
+        for (int sq : squares) {
+            int sx = sq % 8, sy = sq / 8;
+            if (flipX) sx = 7 - sx;
+            if (flipY) sy = 7 - sy;
+            if (transpose) {
+                int t = sx;
+                sx = sy;
+                sy = t;
+            }
+            index = index * 64 + (sy * 8 + sx);
+        }
+        // Replace the first king's square digit with its triangle position.
+        long rest = index % (1L << (6 * (squares.length - 1)));
+        int kingSquare = (int) (index >>> (6 * (squares.length - 1)));
+        return ((long) TRIANGLE_INDEX[kingSquare] << (6 * (squares.length - 1))) | rest;
+    }
+
+    // Inverse of index(): the squares of the canonical position with that index.
+    static void squares(long index, int[] squares) {
+        for (int i = squares.length - 1; i > 0; i--) {
+            squares[i] = (int) (index & 63);
+            index >>>= 6;
+        }
+        squares[0] = TRIANGLE_SQUARES[(int) index];
+    }
+
+    private static int materialValue(List<PieceType> pieces) {
+        int value = 0;
+        for (PieceType type : pieces) {
+            value += switch (type) {
+                case QUEEN -> 9;
+                case ROOK -> 5;
+                case BISHOP, KNIGHT -> 3;
+                default -> 0;
+            };
+        }
+        return value;
+    }
+
+    private static char letter(PieceType type) {
+        return switch (type) {
+            case QUEEN -> 'Q';
+            case ROOK -> 'R';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            default -> 'K';
+        };
+    }
+
+    private static List<PieceType> typesOf(List<Integer> indices, PieceType[] types) {
+        List<PieceType> result = new ArrayList<>();
+        for (int i : indices) {
+            if (types[i] != PieceType.KING) result.add(types[i]);
+        }
+        return result;
+    }
+
+    // Kings first, then MATERIAL_ORDER.
+    private static final class PieceOrder implements Comparator<Integer> {
+        private final PieceType[] types;
+
+        PieceOrder(PieceType[] types) {
+            this.types = types;
+        }
+
+        @Override
+        public int compare(Integer a, Integer b) {
+            return Integer.compare(rank(types[a]), rank(types[b]));
+        }
+
+        private static int rank(PieceType type) {
+            if (type == PieceType.KING) return -1;
+            for (int i = 0; i < MATERIAL_ORDER.length; i++) {
+                if (MATERIAL_ORDER[i] == type) return i;
+            }
+            return MATERIAL_ORDER.length;
+        }
+    }
+
+    /**
+     * One memory-mapped table file.
+     */
+    static final class Table {
+        private final long id;
+        private final long entriesPerSide;
+        private final long[] blockOffsets;
+        private final MappedByteBuffer data;
+        private static final AtomicLong nextId = new AtomicLong();
+
+        private Table(long entriesPerSide, long[] blockOffsets, MappedByteBuffer data) {
+            this.id = nextId.getAndIncrement();
+            this.entriesPerSide = entriesPerSide;
+            this.blockOffsets = blockOffsets;
+            this.data = data;
+        }
+
+        static Table open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                map.order(ByteOrder.LITTLE_ENDIAN);
+                for (byte b : MAGIC) {
+                    if (map.get() != b) throw new IOException("Not a tablebase file: " + file);
+                }
+                byte[] name = new byte[map.getShort()];
+                map.get(name);
+                map.get(); // piece count
+                long entries = map.getLong();
+                if (map.getInt() != BLOCK_SIZE) throw new IOException("Unsupported block size: " + file);
+                long[] offsets = new long[map.getInt() + 1];
+                for (int i = 0; i < offsets.length; i++) offsets[i] = map.getLong();
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, map.position(),
+                        channel.size() - map.position());
+                return new Table(entries, offsets, data);
+            }
+        }
+
+        byte get(int side, long index) throws IOException {
+            long position = side * entriesPerSide + index;
+            byte[] block = block(position / BLOCK_SIZE);
+            return block[(int) (position % BLOCK_SIZE)];
+        }
+
+        private byte[] block(long block) throws IOException {
+            Map<Long, byte[]> cache = BLOCK_CACHE.get();
+            long key = id << 40 | block;
+            byte[] values = cache.get(key);
+            if (values != null) return values;
+
+            int start = (int) blockOffsets[(int) block];
+            int length = (int) (blockOffsets[(int) block + 1] - start);
+            byte[] compressed = new byte[length];
+            data.get(start, compressed);
+            values = new byte[BLOCK_SIZE];
+            Inflater inflater = INFLATER.get();
+            inflater.reset();
+            inflater.setInput(compressed);
+            try {
+                inflater.inflate(values);
+            } catch (DataFormatException ex) {
+                throw new IOException("Corrupt tablebase block " + block, ex);
+            }
+            cache.put(key, values);
+            return values;
+        }
+    }
+}
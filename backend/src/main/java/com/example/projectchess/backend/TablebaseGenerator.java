@@ -0,0 +1,438 @@
+package com.example.projectchess.backend;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.zip.Deflater;
+
+/**
+ * Builds {@link Tablebase} files for pawnless endings by retrograde analysis.
+ *
+ * Checkmates are found first. Each following pass k then settles the wins in k moves (some move
+ * reaches a position where the opponent is mated in k - 1) and after them the losses in k (every
+ * move reaches a position the opponent wins in at most k). Captures lead into the smaller tables,
+ * which are generated first. Each phase runs in parallel over index ranges.
+ *
+ * Run with: java com.example.projectchess.backend.TablebaseGenerator dir [maxPieces | material...]
+ * e.g. "tablebases 4" for every 3- and 4-piece ending, or "tablebases KRBvKR".
+ */
+public class TablebaseGenerator {
+    private static final int CHUNK = 1 << 14;
+    private static final int MAX_DEPTH = 126;
+
+    private final Path directory;
+    private final Tablebase smaller;
+
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+        this.smaller = new Tablebase(directory);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: TablebaseGenerator dir [maxPieces | material...]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        if (args.length == 1 || args[1].matches("\\d")) {
+            int maxPieces = args.length == 1 ? 4 : Integer.parseInt(args[1]);
+            for (int pieces = 3; pieces <= Math.min(maxPieces, Tablebase.MAX_PIECES); pieces++) {
+                for (String material : materials(pieces)) {
+                    generator.ensure(material);
+                }
+            }
+        } else {
+            for (int i = 1; i < args.length; i++) {
+                generator.ensure(args[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns every canonical pawnless material with the given number of pieces, kings included.
+     */
+    public static List<String> materials(int pieces) {
+        List<String> result = new ArrayList<>();
+        int others = pieces - 2;
+        for (int whiteCount = others; whiteCount >= 0; whiteCount--) {
+            for (List<PieceType> white : multisets(whiteCount)) {
+                for (List<PieceType> black : multisets(others - whiteCount)) {
+                    if (Tablebase.isCanonical(white, black)) {
+                        result.add(Tablebase.materialName(white, black));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Generates a table unless its file exists, generating the tables its captures lead to first.
+     */
+    public void ensure(String material) throws IOException {
+        if (Files.exists(file(material))) return;
+        PieceType[] types = Tablebase.parseMaterial(material);
+        int blackKing = blackKingIndex(types);
+        for (int i = 1; i < types.length; i++) {
+            if (i == blackKing) continue;
+            List<PieceType> white = new ArrayList<>(), black = new ArrayList<>();
+            for (int j = 1; j < types.length; j++) {
+                if (j == i || j == blackKing) continue;
+                (j < blackKing ? white : black).add(types[j]);
+            }
+            if (white.size() + black.size() == 0) continue;
+            ensure(Tablebase.isCanonical(white, black)
+                    ? Tablebase.materialName(white, black) : Tablebase.materialName(black, white));
+        }
+        generate(material);
+    }
+
+    /**
+     * Generates one table. The tables for the materials its captures lead to must already exist.
+     */
+    public void generate(String material) throws IOException {
+        long start = System.nanoTime();
+        Material m = new Material(material);
+        int size = (int) Tablebase.entriesPerSide(m.types.length);
+        byte[][] values = {new byte[size], new byte[size]};
+        int chunks = (size + CHUNK - 1) / CHUNK;
+
+        // Mark illegal positions and checkmates.
+        IntStream.range(0, chunks * 2).parallel().forEach(task -> {
+            int side = task % 2;
+            Worker worker = new Worker(m, values);
+            int from = (task / 2) * CHUNK, to = Math.min(from + CHUNK, size);
+            for (int index = from; index < to; index++) {
+                values[side][index] = worker.classify(side, index);
+            }
+        });
+
+        int passes = 0;
+        for (int k = 1; k <= MAX_DEPTH; k++) {
+            AtomicBoolean changed = new AtomicBoolean();
+            AtomicBoolean pending = new AtomicBoolean();
+            // Wins in k first, then losses in k, each phase reading only what earlier phases settled,
+            // so every value is settled in depth order and distances are exact.
+            for (boolean wins : new boolean[]{true, false}) {
+                final int depth = k;
+                IntStream.range(0, chunks * 2).parallel().forEach(task -> {
+                    int side = task % 2;
+                    Worker worker = new Worker(m, values);
+                    int from = (task / 2) * CHUNK, to = Math.min(from + CHUNK, size);
+                    for (int index = from; index < to; index++) {
+                        if (values[side][index] != 0) continue;
+                        int result = worker.resolve(side, index, depth, wins);
+                        if (result == Worker.PENDING) {
+                            pending.set(true);
+                        } else if (result != 0) {
+                            values[side][index] = (byte) result;
+                            changed.set(true);
+                        }
+                    }
+                });
+            }
+            passes = k;
+            // Captures into smaller tables can make a position resolvable only at a later depth.
+            if (!changed.get() && !pending.get()) break;
+        }
+
+        write(material, m.types.length, values);
+        int[] counts = new int[3];
+        int longest = 0;
+        for (byte[] side : values) {
+            for (byte v : side) {
+                if (v == Tablebase.ILLEGAL) continue;
+                counts[v > 0 ? 0 : v == 0 ? 1 : 2]++;
+                longest = Math.max(longest, v);
+            }
+        }
+        System.out.printf("%s: %,d wins, %,d draws, %,d losses, longest mate %d, %d passes, %d ms%n",
+                material, counts[0], counts[1], counts[2], longest, passes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void write(String material, int pieces, byte[][] values) throws IOException {
+        int size = values[0].length;
+        long total = 2L * size;
+        int blocks = (int) ((total + Tablebase.BLOCK_SIZE - 1) / Tablebase.BLOCK_SIZE);
+        byte[][] compressed = new byte[blocks][];
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            byte[] raw = new byte[Tablebase.BLOCK_SIZE];
+            for (int i = 0; i < raw.length; i++) {
+                long position = (long) block * Tablebase.BLOCK_SIZE + i;
+                if (position < total) raw[i] = values[(int) (position / size)][(int) (position % size)];
+            }
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[raw.length + 64];
+            int length = deflater.deflate(buffer);
+            deflater.end();
+            compressed[block] = Arrays.copyOf(buffer, length);
+        });
+
+        Path file = file(material);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            byte[] name = material.getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer header = ByteBuffer.allocate(8 + 2 + name.length + 1 + 8 + 4 + 4 + 8 * (blocks + 1))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.put(Tablebase.MAGIC).putShort((short) name.length).put(name).put((byte) pieces)
+                    .putLong(size).putInt(Tablebase.BLOCK_SIZE).putInt(blocks);
+            long offset = 0;
+            for (byte[] block : compressed) {
+                header.putLong(offset);
+                offset += block.length;
+            }
+            header.putLong(offset);
+            out.write(header.array());
+            for (byte[] block : compressed) {
+                out.write(block);
+            }
+        }
+        // Renamed into place only when complete, so a crash never leaves a partial table behind.
+        Files.move(temp, file, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path file(String material) {
+        return directory.resolve(material + Tablebase.EXTENSION);
+    }
+
+    private static int blackKingIndex(PieceType[] types) {
+        for (int i = 1; i < types.length; i++) {
+            if (types[i] == PieceType.KING) return i;
+        }
+        throw new IllegalArgumentException("Material needs two kings");
+    }
+
+    // Multisets of non-king pieces in MATERIAL_ORDER.
+    private static List<List<PieceType>> multisets(int count) {
+        List<List<PieceType>> result = new ArrayList<>();
+        multisets(count, 0, new ArrayList<>(), result);
+        return result;
+    }
+
+    private static void multisets(int count, int first, List<PieceType> current, List<List<PieceType>> result) {
+        if (current.size() == count) {
+            result.add(new ArrayList<>(current));
+            return;
+        }
+        for (int i = first; i < Tablebase.MATERIAL_ORDER.length; i++) {
+            current.add(Tablebase.MATERIAL_ORDER[i]);
+            multisets(count, i, current, result);
+            current.remove(current.size() - 1);
+        }
+    }
+
+    /**
+     * The pieces of a table in index order: white king, white pieces, black king, black pieces.
+     */
+    private static final class Material {
+        final PieceType[] types;
+        final Color[] colors;
+        final int[] kings = new int[2]; // index of each side's king, by Color ordinal
+
+        Material(String name) {
+            types = Tablebase.parseMaterial(name);
+            colors = new Color[types.length];
+            kings[1] = blackKingIndex(types);
+            for (int i = 0; i < types.length; i++) {
+                colors[i] = i < kings[1] ? Color.WHITE : Color.BLACK;
+            }
+        }
+    }
+
+    /**
+     * Move generation and evaluation for one thread; positions are plain square arrays.
+     */
+    private final class Worker {
+        static final int PENDING = Integer.MIN_VALUE;
+        private static final int[][] KING_STEPS = {{-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+        private static final int[][] KNIGHT_STEPS = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+        private final Material m;
+        private final byte[][] values;
+        private final int[] squares;
+        private final int[] child;
+        // Summary of the children of the position being evaluated.
+        private int moves, bestWin, maxWin;
+        private boolean allWins;
+
+        Worker(Material m, byte[][] values) {
+            this.m = m;
+            this.values = values;
+            this.squares = new int[m.types.length];
+            this.child = new int[m.types.length];
+        }
+
+        // Initial value of a position: ILLEGAL, mated (-1), or 0 for everything else.
+        byte classify(int side, int index) {
+            Tablebase.squares(index, squares);
+            for (int i = 0; i < squares.length; i++) {
+                for (int j = i + 1; j < squares.length; j++) {
+                    if (squares[i] == squares[j]) return Tablebase.ILLEGAL;
+                }
+            }
+            Color mover = side == 0 ? Color.WHITE : Color.BLACK;
+            Color waiting = side == 0 ? Color.BLACK : Color.WHITE;
+            if (attacked(squares, -1, squares[m.kings[waiting.ordinal()]], mover)) return Tablebase.ILLEGAL;
+            scanMoves(side, index);
+            if (moves == 0 && attacked(squares, -1, squares[m.kings[mover.ordinal()]], waiting)) return -1;
+            return 0;
+        }
+
+        /**
+         * Value of an unresolved position in one phase of pass k: a win (or loss) in k moves, 0 if
+         * it cannot be settled yet or is a draw, or PENDING if it will settle at a later depth.
+         */
+        int resolve(int side, int index, int k, boolean wins) {
+            Tablebase.squares(index, squares);
+            scanMoves(side, index);
+            if (moves == 0) return 0; // stalemate
+            if (wins) {
+                if (bestWin <= k) return bestWin;
+                return bestWin <= MAX_DEPTH ? PENDING : 0;
+            }
+            if (allWins && maxWin <= k) return -(maxWin + 1);
+            return allWins && maxWin <= MAX_DEPTH ? PENDING : 0;
+        }
+
+        // Generates the legal moves of the position in `squares` and summarizes their values.
+        private void scanMoves(int side, int index) {
+            moves = 0;
+            bestWin = Integer.MAX_VALUE;
+            maxWin = 0;
+            allWins = true;
+            Color mover = side == 0 ? Color.WHITE : Color.BLACK;
+            for (int i = 0; i < squares.length; i++) {
+                if (m.colors[i] != mover) continue;
+                int row = squares[i] / 8, col = squares[i] % 8;
+                switch (m.types[i]) {
+                    case KING -> steps(side, i, row, col, KING_STEPS);
+                    case KNIGHT -> steps(side, i, row, col, KNIGHT_STEPS);
+                    case ROOK -> slides(side, i, row, col, ROOK_DIRECTIONS);
+                    case BISHOP -> slides(side, i, row, col, BISHOP_DIRECTIONS);
+                    case QUEEN -> {
+                        slides(side, i, row, col, ROOK_DIRECTIONS);
+                        slides(side, i, row, col, BISHOP_DIRECTIONS);
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void steps(int side, int piece, int row, int col, int[][] steps) {
+            for (int[] step : steps) {
+                int r = row + step[0], c = col + step[1];
+                if (r >= 0 && r < 8 && c >= 0 && c < 8) tryMove(side, piece, r * 8 + c);
+            }
+        }
+
+        private void slides(int side, int piece, int row, int col, int[][] directions) {
+            for (int[] d : directions) {
+                int r = row + d[0], c = col + d[1];
+                while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                    tryMove(side, piece, r * 8 + c);
+                    if (occupant(squares, -1, r * 8 + c) >= 0) break;
+                    r += d[0];
+                    c += d[1];
+                }
+            }
+        }
+
+        private void tryMove(int side, int piece, int target) {
+            int captured = occupant(squares, -1, target);
+            if (captured >= 0 && m.colors[captured] == m.colors[piece]) return;
+            System.arraycopy(squares, 0, child, 0, squares.length);
+            child[piece] = target;
+            Color mover = m.colors[piece];
+            Color opponent = mover == Color.WHITE ? Color.BLACK : Color.WHITE;
+            if (attacked(child, captured, child[m.kings[mover.ordinal()]], opponent)) return;
+            moves++;
+
+            int value = captured < 0 ? values[1 - side][(int) Tablebase.index(child)] : probeSmaller(captured, opponent);
+            if (value > 0) {
+                maxWin = Math.max(maxWin, value);
+            } else {
+                allWins = false;
+                // Opponent mated in (-value - 1): we mate in -value.
+                if (value < 0) bestWin = Math.min(bestWin, -value);
+            }
+        }
+
+        private int probeSmaller(int captured, Color sideToMove) {
+            int n = child.length - 1;
+            PieceType[] types = new PieceType[n];
+            Color[] colors = new Color[n];
+            int[] sq = new int[n];
+            for (int i = 0, j = 0; i < child.length; i++) {
+                if (i == captured) continue;
+                types[j] = m.types[i];
+                colors[j] = m.colors[i];
+                sq[j++] = child[i];
+            }
+            try {
+                int value = smaller.probe(types, colors, sq, sideToMove);
+                if (value == Integer.MIN_VALUE) {
+                    throw new IllegalStateException("Missing smaller table for a capture; generate it first");
+                }
+                return value;
+            } catch (IOException ex) {
+                throw new java.io.UncheckedIOException(ex);
+            }
+        }
+
+        // Index of the piece on a square, ignoring the piece `skip`; -1 if empty.
+        private int occupant(int[] position, int skip, int square) {
+            for (int i = 0; i < position.length; i++) {
+                if (i != skip && position[i] == square) return i;
+            }
+            return -1;
+        }
+
+        // Whether any piece of `by` (other than the captured one) attacks the square.
+        private boolean attacked(int[] position, int captured, int square, Color by) {
+            int tr = square / 8, tc = square % 8;
+            for (int i = 0; i < position.length; i++) {
+                if (i == captured || m.colors[i] != by) continue;
+                int r = position[i] / 8, c = position[i] % 8;
+                int dr = tr - r, dc = tc - c;
+                if (dr == 0 && dc == 0) continue;
+                boolean hits = switch (m.types[i]) {
+                    case KING -> Math.abs(dr) <= 1 && Math.abs(dc) <= 1;
+                    case KNIGHT -> Math.abs(dr * dc) == 2;
+                    case ROOK -> (dr == 0 || dc == 0) && clear(position, captured, r, c, tr, tc);
+                    case BISHOP -> Math.abs(dr) == Math.abs(dc) && clear(position, captured, r, c, tr, tc);
+                    case QUEEN -> (dr == 0 || dc == 0 || Math.abs(dr) == Math.abs(dc))
+                            && clear(position, captured, r, c, tr, tc);
+                    default -> false;
+                };
+                if (hits) return true;
+            }
+            return false;
+        }
+
+        private boolean clear(int[] position, int captured, int r, int c, int tr, int tc) {
+            int dr = Integer.signum(tr - r), dc = Integer.signum(tc - c);
+            for (r += dr, c += dc; r != tr || c != tc; r += dr, c += dc) {
+                if (occupant(position, captured, r * 8 + c) >= 0) return false;
+            }
+            return true;
+        }
+    }
+}
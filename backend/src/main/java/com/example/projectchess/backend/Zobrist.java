@@ -0,0 +1,36 @@
+package com.example.projectchess.backend;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions; see {@link ChessBoard#zobristKey()}.
+ * The keys come from a fixed seed because they end up in files (opening books, position indexes):
+ * changing the seed or the order they are drawn in invalidates every such file.
+ */
+final class Zobrist {
+    // [color * 6 + piece type][row * 8 + col]
+    static final long[][] PIECES = new long[12][64];
+    // White king side, white queen side, black king side, black queen side.
+    static final long[] CASTLING = new long[4];
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x2B992DDFA23249D6L);
+        for (long[] piece : PIECES) {
+            for (int square = 0; square < 64; square++) {
+                piece[square] = random.nextLong();
+            }
+        }
+        for (int i = 0; i < CASTLING.length; i++) CASTLING[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) EN_PASSANT_FILE[i] = random.nextLong();
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static int pieceIndex(ChessPiece piece) {
+        return piece.getColor().ordinal() * 6 + piece.getType().ordinal();
+    }
+}
@@ -0,0 +1,5 @@
+module com.example.projectchess.backend {
+    requires jdk.jfr;
+
+    exports com.example.projectchess.backend;
+}
@@ -0,0 +1,113 @@
+package com.example.projectchess.backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class ChessBoardTest {
+    @Test
+    void fenRoundTrips() {
+        for (String fen : new String[]{
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3"}) {
+            ChessBoard board = new ChessBoard();
+            board.loadFen(fen);
+            assertEquals(fen, board.toFen());
+            assertEquals(fen, new ChessBoard(board.snapshot()).toFen());
+        }
+    }
+
+    @Test
+    void fenFollowsPlayedMoves() {
+        ChessBoard board = new ChessBoard();
+        for (String san : new String[]{"e4", "c5", "Nf3", "d6", "Bb5+", "Bd7", "O-O"}) {
+            San.play(board, san);
+        }
+        assertEquals("rn1qkbnr/pp1bpppp/3p4/1Bp5/4P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 3 4", board.toFen());
+    }
+
+    @Test
+    void moveCountersAreOptional() {
+        ChessBoard board = new ChessBoard();
+        board.loadFen("4k3/8/8/8/8/8/8/4K3 b - -");
+        assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 0 1", board.toFen());
+        assertEquals(1, board.getFullmoveNumber());
+    }
+
+    @Test
+    void rejectsMalformedFen() {
+        ChessBoard board = new ChessBoard();
+        assertThrows(IllegalArgumentException.class, () -> board.loadFen("8/8/8 w - - 0 1"));
+        assertThrows(IllegalArgumentException.class, () -> board.loadFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1"));
+    }
+
+    @Test
+    void castlingRightsNeedTheKingAndRookAtHome() {
+        ChessBoard board = new ChessBoard();
+        board.loadFen("4k3/8/8/8/8/8/8/R3K3 w KQkq - 0 1");
+        assertEquals("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1", board.toFen());
+
+        ChessBoard stripped = new ChessBoard();
+        stripped.loadFen("4k3/8/8/8/8/8/8/R3K3 w Q - 0 1");
+        assertEquals(stripped.zobristKey(), board.zobristKey());
+
+        board.loadFen("4k3/8/8/8/8/8/8/3K4 w KQkq - 0 1");
+        assertFalse(board.hasCastlingRights());
+        assertEquals("4k3/8/8/8/8/8/8/3K4 w - - 0 1", board.toFen());
+    }
+
+    @Test
+    void transpositionsGetEqualKeys() {
+        ChessBoard knightFirst = play("Nf3", "d5", "d4");
+        ChessBoard pawnFirst = play("d4", "d5", "Nf3");
+        // The d4 push leaves an en passant square no black pawn can use.
+        assertEquals(knightFirst.zobristKey(), pawnFirst.zobristKey());
+    }
+
+    @Test
+    void enPassantFileCountsOnlyWhenACaptureIsPossible() {
+        ChessBoard pushed = play("e4", "a6", "e5", "a5", "Nf3", "d5");
+        ChessBoard stepped = play("e4", "a5", "e5", "d6", "Nf3", "d5");
+        // Same pieces and side to move, but only after d7-d5 may the e5 pawn take en passant.
+        assertNotEquals(pushed.zobristKey(), stepped.zobristKey());
+    }
+
+    private static ChessBoard play(String... moves) {
+        ChessBoard board = new ChessBoard();
+        for (String san : moves) {
+            if (!San.play(board, san)) throw new IllegalArgumentException(san);
+        }
+        return board;
+    }
+
+    @Test
+    void zobristKeyTracksSideToMove() {
+        ChessBoard white = new ChessBoard();
+        white.loadFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        ChessBoard black = new ChessBoard();
+        black.loadFen("4k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        assertNotEquals(white.zobristKey(), black.zobristKey());
+    }
+
+    @Test
+    void promotesOnlyToQueenRookBishopOrKnight() {
+        String fen = "8/4P3/8/8/8/8/k7/4K3 w - - 0 1";
+        ChessBoard board = new ChessBoard();
+        for (PieceType promotion : new PieceType[]{PieceType.KING, PieceType.PAWN}) {
+            board.loadFen(fen);
+            assertFalse(board.movePiece(1, 4, 0, 4, Color.WHITE, promotion));
+            assertEquals(fen, board.toFen());
+        }
+        board.loadFen(fen);
+        assertTrue(board.movePiece(1, 4, 0, 4, Color.WHITE, PieceType.KNIGHT));
+        assertEquals(PieceType.KNIGHT, board.getPiece(0, 4).getType());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.projectchess.backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// Perft totals are the Chess Programming Wiki's for its standard test positions.
+class EngineTest {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String DISCOVERED = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    @Test
+    void perftFromTheStartPosition() {
+        assertEquals(20, perft(START, 1));
+        assertEquals(400, perft(START, 2));
+        assertEquals(8902, perft(START, 3));
+        assertEquals(197281, perft(START, 4));
+    }
+
+    @Test
+    void perftWithCastlingAndEnPassant() {
+        assertEquals(48, perft(KIWIPETE, 1));
+        assertEquals(2039, perft(KIWIPETE, 2));
+        assertEquals(97862, perft(KIWIPETE, 3));
+    }
+
+    @Test
+    void perftInARookEndgame() {
+        assertEquals(14, perft(ENDGAME, 1));
+        assertEquals(2812, perft(ENDGAME, 3));
+        assertEquals(43238, perft(ENDGAME, 4));
+    }
+
+    @Test
+    void perftWithPromotions() {
+        assertEquals(6, perft(PROMOTIONS, 1));
+        assertEquals(264, perft(PROMOTIONS, 2));
+        assertEquals(9467, perft(PROMOTIONS, 3));
+        assertEquals(44, perft(DISCOVERED, 1));
+        assertEquals(1486, perft(DISCOVERED, 2));
+        assertEquals(62379, perft(DISCOVERED, 3));
+    }
+
+    private static long perft(String fen, int depth) {
+        ChessBoard board = new ChessBoard();
+        board.loadFen(fen);
+        return new Engine(null, null).perft(board.snapshot(), depth);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.projectchess.backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reports PGN reading throughput in games/second: parsing only, parsing plus SAN decoding
+ * on a ChessBoard, and the same with the parallel reader.
+ * Run from backend/ after mvn test-compile, with:
+ *   java -cp target/test-classes:target/classes com.example.projectchess.backend.PgnBenchmark [file.pgn] [threads]
+ * Without a file, a file of random games is generated first.
+ */
+public class PgnBenchmark {
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Path.of(args[0]) : generate(2000, new Random(7));
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.printf("%s: %,d bytes%n", file, Files.size(file));
+
+        LongAdder moves = new LongAdder();
+        long start = System.nanoTime();
+        long games = PgnReader.readAll(file, game -> moves.add(game.getMoves().size()));
+        report("parse only", games, moves.sum(), System.nanoTime() - start);
+
+        LongAdder failed = new LongAdder();
+        start = System.nanoTime();
+        games = PgnReader.readAll(file, game -> {
+            if (game.replay() == null) failed.increment();
+        });
+        report("parse + SAN decode", games, moves.sum(), System.nanoTime() - start);
+
+        start = System.nanoTime();
+        games = PgnReader.readParallel(file, threads, game -> {
+            if (game.replay() == null) failed.increment();
+        });
+        report("parallel x" + threads + " parse + SAN decode", games, moves.sum(), System.nanoTime() - start);
+        if (failed.sum() > 0) System.out.println(failed.sum() + " games had illegal or unreadable moves");
+    }
+
+    private static void report(String label, long games, long moves, long nanos) {
+        System.out.printf("%-32s %,8d games in %,6d ms: %,10.0f games/s, %,12.0f moves/s%n",
+                label, games, nanos / 1_000_000, games / (nanos / 1e9), moves / (nanos / 1e9));
+    }
+
+    // Writes random legal games, so the decode passes have real SAN to resolve.
+    private static Path generate(int count, Random random) throws IOException {
+        Path file = Files.createTempFile("bench", ".pgn");
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int g = 0; g < count; g++) {
+                ChessBoard board = new ChessBoard();
+                PgnGame game = new PgnGame();
+                game.setTag("Event", "Benchmark");
+                game.setTag("Round", String.valueOf(g + 1));
+                while (game.getMoves().size() < 160) {
+                    List<int[]> legal = new ArrayList<>();
+                    for (int row = 0; row < 8; row++) {
+                        for (int col = 0; col < 8; col++) {
+                            ChessPiece piece = board.getPiece(row, col);
+                            if (piece == null || piece.getColor() != board.getSideToMove()) continue;
+                            for (int[] to : board.getLegalMoves(row, col)) {
+                                legal.add(new int[]{row, col, to[0], to[1]});
+                            }
+                        }
+                    }
+                    if (legal.isEmpty()) break;
+                    int[] m = legal.get(random.nextInt(legal.size()));
+                    game.getMoves().add(San.toSan(board, m[0], m[1], m[2], m[3], PieceType.QUEEN));
+                    board.movePiece(m[0], m[1], m[2], m[3], board.getSideToMove());
+                }
+                game.setResult("*");
+                PgnWriter.write(game, out);
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.projectchess.backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PgnReaderTest {
+    private static final int GAMES = 500;
+
+    @TempDir
+    static Path directory;
+    private static Path file;
+
+    @BeforeAll
+    static void writeGames() throws IOException {
+        file = directory.resolve("games.pgn");
+        writeRandomGames(file, GAMES, 42);
+    }
+
+    // Writes random legal games with PgnWriter, some from a FEN and some followed by a comment.
+    static void writeRandomGames(Path file, int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (Writer out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                PgnGame game = new PgnGame();
+                game.setTag("Event", "Test");
+                game.setTag("Round", String.valueOf(i + 1));
+                if (i % 7 == 0) game.setTag("FEN", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 12");
+                ChessBoard board = game.startBoard();
+                int plies = random.nextInt(120);
+                for (int ply = 0; ply < plies && board.hasLegalMoves(board.getSideToMove()); ply++) {
+                    int[] move = randomMove(board, random);
+                    PieceType promotion = PieceType.values()[1 + random.nextInt(4)];
+                    game.getMoves().add(San.toSan(board, move[0], move[1], move[2], move[3], promotion));
+                    board.movePiece(move[0], move[1], move[2], move[3], board.getSideToMove(), promotion);
+                }
+                game.setResult(i % 3 == 0 ? "1-0" : i % 3 == 1 ? "0-1" : "1/2-1/2");
+                PgnWriter.write(game, out);
+                if (i % 11 == 0) out.write("{ a comment\nover two lines }\n\n");
+            }
+        }
+    }
+
+    @Test
+    void readAllReadsEveryGame() throws IOException {
+        List<String> games = new ArrayList<>();
+        assertEquals(GAMES, PgnReader.readAll(file, game -> games.add(describe(game))));
+        assertEquals(GAMES, games.size());
+        // Every game was written with legal moves, so every game replays.
+        PgnReader.readAll(file, game -> assertNotNull(game.replay(), game.getTag("Round")));
+    }
+
+    @Test
+    void readParallelMatchesReadAll() throws IOException {
+        List<String> expected = new ArrayList<>();
+        PgnReader.readAll(file, game -> expected.add(describe(game)));
+        Collections.sort(expected);
+        for (int threads : new int[]{1, 2, 3, 8, 64}) {
+            List<String> games = Collections.synchronizedList(new ArrayList<>());
+            assertEquals(GAMES, PgnReader.readParallel(file, threads, game -> games.add(describe(game))));
+            Collections.sort(games);
+            assertEquals(expected, games, threads + " threads");
+        }
+    }
+
+    @Test
+    void writtenGamesReadBackUnchanged() throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        PgnReader.readAll(file, games::add);
+        StringBuilder again = new StringBuilder();
+        for (PgnGame game : games) again.append(PgnWriter.toString(game));
+        Path copy = directory.resolve("copy.pgn");
+        Files.writeString(copy, again);
+        List<String> copied = new ArrayList<>();
+        PgnReader.readAll(copy, game -> copied.add(describe(game)));
+        List<String> original = games.stream().map(PgnReaderTest::describe).toList();
+        assertEquals(original, copied);
+    }
+
+    private static int[] randomMove(ChessBoard board, Random random) {
+        List<int[]> moves = new ArrayList<>();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.getPiece(row, col);
+                if (piece == null || piece.getColor() != board.getSideToMove()) continue;
+                for (int[] to : board.getLegalMoves(row, col)) moves.add(new int[]{row, col, to[0], to[1]});
+            }
+        }
+        return moves.get(random.nextInt(moves.size()));
+    }
+
+    private static String describe(PgnGame game) {
+        return game.getTags() + " " + game.getMoves() + " " + game.getResult();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.projectchess.backend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks indexes against a HashMap of key -> (game id -> first ply) built from the same games.
+class PositionIndexTest {
+    private static final int SEGMENTS = 3;
+    private static final int GAMES_PER_SEGMENT = 300;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void directGamesMatchOracleAcrossSegmentsAndThreads() throws IOException {
+        Random random = new Random(7);
+        long[] pool = new long[2000];
+        for (int i = 0; i < pool.length; i++) pool[i] = random.nextLong();
+        // Keys at the edges of the merge's key ranges.
+        pool[0] = Long.MIN_VALUE;
+        pool[1] = Long.MAX_VALUE;
+        pool[2] = 0;
+        pool[3] = -1;
+
+        for (int threads : new int[]{1, 3, 8}) {
+            Path index = directory.resolve("direct-" + threads);
+            Map<Long, Map<Long, Integer>> oracle = new HashMap<>();
+            for (int segment = 0; segment < SEGMENTS; segment++) {
+                long firstGameId;
+                try (PositionIndex existing = PositionIndex.open(index)) {
+                    firstGameId = existing.getNextGameId();
+                }
+                PositionIndexBuilder builder = new PositionIndexBuilder(firstGameId, threads, work(index, segment));
+                for (long game = firstGameId; game < firstGameId + GAMES_PER_SEGMENT; game++) {
+                    long[] keys = new long[1 + random.nextInt(200)];
+                    for (int ply = 0; ply < keys.length; ply++) {
+                        // Mostly shared keys, so games meet and revisit positions.
+                        keys[ply] = random.nextInt(4) == 0 ? random.nextLong() : pool[random.nextInt(pool.length)];
+                        oracle.computeIfAbsent(keys[ply], k -> new LinkedHashMap<>()).putIfAbsent(game, ply);
+                    }
+                    builder.addGame(game, keys, keys.length);
+                }
+                builder.setSourceOffset(1000L * (segment + 1));
+                builder.write(index);
+            }
+            try (PositionIndex opened = PositionIndex.open(index)) {
+                assertEquals(SEGMENTS, opened.getSegmentCount());
+                assertEquals((long) SEGMENTS * GAMES_PER_SEGMENT, opened.getNextGameId());
+                assertEquals(1000L * SEGMENTS, opened.getSourceOffset());
+                assertMatches(oracle, opened, threads + " threads");
+                for (int i = 0; i < 1000; i++) {
+                    long absent = random.nextLong();
+                    if (!oracle.containsKey(absent)) assertEquals(0, opened.count(absent));
+                }
+            }
+        }
+    }
+
+    @Test
+    void pgnGamesMatchOracleAtEveryThreadCount() throws IOException {
+        Path pgn = directory.resolve("games.pgn");
+        PgnReaderTest.writeRandomGames(pgn, 200, 11);
+        // Games are numbered in file order from the index's next id, one segment per build.
+        Map<Long, Map<Long, Integer>> oracle = new HashMap<>();
+        long[] game = {0};
+        for (int build = 0; build < 2; build++) {
+            PgnReader.readAll(pgn, record -> {
+                ChessBoard board = record.startBoard();
+                long id = game[0]++;
+                oracle.computeIfAbsent(board.zobristKey(), k -> new LinkedHashMap<>()).putIfAbsent(id, 0);
+                int ply = 0;
+                for (String san : record.getMoves()) {
+                    San.play(board, san);
+                    oracle.computeIfAbsent(board.zobristKey(), k -> new LinkedHashMap<>()).putIfAbsent(id, ++ply);
+                }
+            });
+        }
+
+        for (int threads : new int[]{1, 3, 8}) {
+            Path index = directory.resolve("pgn-" + threads);
+            for (int build = 0; build < 2; build++) {
+                long firstGameId;
+                try (PositionIndex existing = PositionIndex.open(index)) {
+                    firstGameId = existing.getNextGameId();
+                }
+                PositionIndexBuilder builder = new PositionIndexBuilder(firstGameId, threads, work(index, build));
+                assertEquals(firstGameId, builder.addGames(pgn));
+                builder.write(index);
+            }
+            try (PositionIndex opened = PositionIndex.open(index)) {
+                assertEquals(game[0], opened.getNextGameId());
+                assertMatches(oracle, opened, threads + " threads");
+            }
+        }
+    }
+
+    @Test
+    void emptyBuildWritesNoSegment() throws IOException {
+        PositionIndexBuilder builder = new PositionIndexBuilder(0, 2, work(directory, 0));
+        assertNull(builder.write(directory.resolve("empty")));
+        try (PositionIndex opened = PositionIndex.open(directory.resolve("empty"))) {
+            assertEquals(0, opened.getSegmentCount());
+            assertEquals(0, opened.count(new ChessBoard()));
+        }
+    }
+
+    // Every key's games in ascending id order, each with the ply it first reached the key at.
+    private static void assertMatches(Map<Long, Map<Long, Integer>> oracle, PositionIndex index, String message) {
+        for (Map.Entry<Long, Map<Long, Integer>> entry : oracle.entrySet()) {
+            long key = entry.getKey();
+            Map<Long, Integer> expected = entry.getValue();
+            assertEquals(expected.size(), index.count(key), message);
+            Map<Long, Integer> found = new LinkedHashMap<>();
+            index.forEach(key, (game, ply) -> found.put(game, ply));
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(found.entrySet()), message);
+            List<PositionIndex.Occurrence> first = index.lookup(key, 3);
+            assertEquals(Math.min(3, expected.size()), first.size(), message);
+            assertEquals(expected.keySet().iterator().next(), first.get(0).getGameId(), message);
+        }
+    }
+
+    private Path work(Path index, int build) throws IOException {
+        return Files.createDirectories(directory.resolve("work-" + index.getFileName() + "-" + build));
+    }
+}
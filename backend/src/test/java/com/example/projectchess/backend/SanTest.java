@@ -0,0 +1,83 @@
+package com.example.projectchess.backend;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SanTest {
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    @Test
+    void everyLegalMoveParsesBackFromItsSan() {
+        for (String fen : new String[]{
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 b kq - 0 1",
+                // Three knights and two rooks that can reach the same squares.
+                "4k3/8/8/1N3N2/8/1N6/8/R3K2R w - - 0 1"}) {
+            ChessBoard board = new ChessBoard();
+            board.loadFen(fen);
+            Color turn = board.getSideToMove();
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    ChessPiece piece = board.getPiece(row, col);
+                    if (piece == null || piece.getColor() != turn) continue;
+                    for (int[] move : board.getLegalMoves(row, col)) {
+                        boolean promotes = piece.getType() == PieceType.PAWN && (move[0] == 0 || move[0] == 7);
+                        for (PieceType promotion : promotes ? PROMOTIONS : new PieceType[]{PieceType.QUEEN}) {
+                            String san = San.toSan(board, row, col, move[0], move[1], promotion);
+                            assertArrayEquals(new int[]{row, col, move[0], move[1], promotion.ordinal()},
+                                    San.parse(board, san), fen + " " + san);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void encodesCastlingChecksAndDisambiguation() {
+        ChessBoard board = new ChessBoard();
+        board.loadFen("4k3/8/8/1N3N2/8/1N6/8/R3K2R w KQ - 0 1");
+        assertEquals("O-O", San.toSan(board, 7, 4, 7, 6, null));
+        assertEquals("O-O-O", San.toSan(board, 7, 4, 7, 2, null));
+        assertEquals("Rd1", San.toSan(board, 7, 0, 7, 3, null));
+        assertEquals("N3d4", San.toSan(board, 5, 1, 4, 3, null));
+        assertEquals("Nfd4", San.toSan(board, 3, 5, 4, 3, null));
+        assertEquals("Nb5d4", San.toSan(board, 3, 1, 4, 3, null));
+        assertEquals("Nbd6+", San.toSan(board, 3, 1, 2, 3, null));
+
+        board.loadFen("rnbqkbnr/pppp1ppp/8/4p3/6P1/5P2/PPPPP2P/RNBQKBNR b KQkq - 0 2");
+        assertEquals("Qh4#", San.toSan(board, 0, 3, 4, 7, null));
+    }
+
+    @Test
+    void encodesEnPassantAndUnderpromotion() {
+        ChessBoard board = new ChessBoard();
+        board.loadFen("4k3/1P6/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        assertEquals("exd6", San.toSan(board, 3, 4, 2, 3, null));
+        assertEquals("b8=N", San.toSan(board, 1, 1, 0, 1, PieceType.KNIGHT));
+        assertEquals("b8=Q+", San.toSan(board, 1, 1, 0, 1, PieceType.QUEEN));
+    }
+
+    @Test
+    void parsesAnnotatedAndZeroCastlingMoves() {
+        ChessBoard board = new ChessBoard();
+        board.loadFen("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        assertArrayEquals(new int[]{7, 4, 7, 6, PieceType.QUEEN.ordinal()}, San.parse(board, "0-0"));
+        assertArrayEquals(new int[]{7, 0, 7, 3, PieceType.QUEEN.ordinal()}, San.parse(board, "Rd1!?"));
+    }
+
+    @Test
+    void rejectsIllegalAndAmbiguousMoves() {
+        ChessBoard board = new ChessBoard();
+        assertNull(San.parse(board, "e5"));
+        assertNull(San.parse(board, "O-O"));
+        assertNull(San.parse(board, "Nd2"));
+        board.loadFen("4k3/8/8/1N3N2/8/1N6/8/4K3 w - - 0 1");
+        assertNull(San.parse(board, "Nd4"));
+    }
+}
@@ -0,0 +1,48 @@
+#!/bin/bash
+# Builds a runtime image of the headless server in target/image: java.base, jdk.jfr and the
+# backend and server modules, with no JavaFX and no JDK tools. It is given two class-data-sharing
+# archives so the JVM maps classes in rather than loading and verifying them on every start:
+#   lib/server/classes.jsa  the image's own JDK classes, made by jlink --generate-cds-archive
+#   lib/server.jsa          the server's classes, recorded while the load generator plays on it
+# bin/chess-server starts the server with both; java options go in JAVA_OPTS, e.g.
+#   JAVA_OPTS="-Dchess.port=5000 -Dchess.journal=/var/lib/chess" target/image/bin/chess-server
+#
+# Run after mvn package, tests included (mvn -P image package runs it too). Uses JAVA_HOME, or the JDK on the PATH.
+set -e
+cd "$(dirname "$0")"
+BIN=${JAVA_HOME:+$JAVA_HOME/bin/}
+IMAGE=target/image
+MAIN=com.example.projectchess.server/com.example.projectchess.server.ChessServer
+TRAINING_PORT=${TRAINING_PORT:-5099}
+
+rm -rf $IMAGE
+# Not compressed: decompressing lib/modules would cost more start time than the space is worth.
+"${BIN}jlink" --module-path "target/modules:$(ls target/chess-server-*.jar)" \
+    --add-modules com.example.projectchess.server \
+    --strip-debug --no-header-files --no-man-pages \
+    --generate-cds-archive \
+    --output $IMAGE
+
+# Training run: the server dumps the classes it loaded when it is stopped.
+JOURNAL=$(mktemp -d)
+$IMAGE/bin/java -XX:ArchiveClassesAtExit=$IMAGE/lib/server.jsa \
+    -Dchess.port=$TRAINING_PORT -Dchess.journal="$JOURNAL" -m $MAIN > target/training.log 2>&1 &
+SERVER=$!
+until (echo > /dev/tcp/localhost/$TRAINING_PORT) 2>/dev/null; do
+    kill -0 $SERVER || { cat target/training.log; exit 1; }
+    sleep 0.1
+done 2>/dev/null
+# The load generator is a test class, not part of the image: it runs on the JDK that built it.
+"${BIN}java" -cp "target/test-classes:target/classes:target/modules/*" com.example.projectchess.server.LoadGenerator \
+    --port $TRAINING_PORT --bots 50 --duration 10 --think 20 --ramp 1
+kill $SERVER
+wait $SERVER || true
+rm -rf "$JOURNAL"
+
+cat > $IMAGE/bin/chess-server <<EOF
+#!/bin/sh
+DIR=\$(dirname "\$0")
+exec "\$DIR/java" -XX:SharedArchiveFile="\$DIR/../lib/server.jsa" \$JAVA_OPTS -m $MAIN "\$@"
+EOF
+chmod +x $IMAGE/bin/chess-server
+echo "Server image in $IMAGE ($(du -sh $IMAGE | cut -f1)), start it with $IMAGE/bin/chess-server"
@@ -0,0 +1,253 @@
+package com.example.projectchess.server;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import com.example.projectchess.backend.Metrics;
+
+public class ChessServer {
+    private final Map<Long, GameSession> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextGameId = new AtomicLong(1);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // Small shared pool that drains every spectator's queue; spectators do not get a thread each.
+    private final FeedWriters feedWriters;
+    // Every game on one stream, for observers watching many boards.
+    private final HallFeed hall;
+
+    private final GameJournal journal;
+    private final ResumeTokens tokens;
+
+    // Player waiting for an opponent, with the reader that already consumed its handshake line.
+    private SocketChannel waitingPlayer;
+    private BufferedReader waitingReader;
+
+    public ChessServer(Path journalDirectory) throws IOException {
+        feedWriters = new FeedWriters(Runtime.getRuntime().availableProcessors());
+        hall = new HallFeed(feedWriters);
+        journal = new GameJournal(journalDirectory);
+        tokens = new ResumeTokens(journalDirectory);
+        recoverGames(journalDirectory);
+        journal.setRetention(new GameJournal.Retention() {
+            @Override
+            public long oldestInProgress(long next) {
+                long oldest = next;
+                for (GameSession game : games.values()) {
+                    oldest = Math.min(oldest, game.getJournalStart());
+                }
+                return oldest;
+            }
+
+            @Override
+            public long nextGameId() {
+                return nextGameId.get();
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        int port = Integer.getInteger("chess.port", 5000);
+        try {
+            new ChessServer(Path.of(System.getProperty("chess.journal", "journal"))).serve(port);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Rebuilds every game that was still in progress when the journal was last written. Replay starts
+     * at the journal's last checkpoint, and a game is dropped as soon as its end-of-game record is read.
+     */
+    void recoverGames(Path journalDirectory) throws IOException {
+        long start = System.nanoTime();
+        nextGameId.accumulateAndGet(journal.getCheckpointGameId(), Math::max);
+        Map<Long, GameSession> replayed = new HashMap<>();
+        GameJournal.replay(journalDirectory, journal.getRecoveryStart(), (position, gameId, seq, move, timestamp) -> {
+            nextGameId.accumulateAndGet(gameId + 1, Math::max);
+            GameSession game = replayed.get(gameId);
+            if (game == null) {
+                // A game whose first move is before the checkpoint had finished by then.
+                if (seq != 1) return;
+                game = new GameSession(gameId, new SpectatorFeed(feedWriters, hall, gameId), journal, tokens,
+                        () -> games.remove(gameId));
+                replayed.put(gameId, game);
+            }
+            game.replay(position, move);
+            if (game.isOver()) replayed.remove(gameId);
+        });
+        for (GameSession game : replayed.values()) {
+            games.put(game.getId(), game);
+            hall.register(game.getFeed());
+        }
+        if (!replayed.isEmpty()) {
+            System.out.println("Recovered " + games.size() + " in-progress games from the journal in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        }
+    }
+
+    int getGameCount() {
+        return games.size();
+    }
+
+    public void serve(int port) {
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            System.out.println("ChessServer started on port " + port + ". Waiting for players...");
+            while (true) {
+                SocketChannel channel = serverChannel.accept();
+                executor.execute(() -> handshake(channel));
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the first line of a new connection: "PLAY" for a player, "SPECTATE gameId" for a spectator,
+     * "SPECTATE ALL" for an observer of every game, or "RESUME gameId token lastSeq" for a player
+     * reconnecting to a game in progress with the token it was given in "GAME gameId token".
+     */
+    private void handshake(SocketChannel channel) {
+        Socket socket = channel.socket();
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            String hello = in.readLine();
+            String[] parts = hello == null ? new String[0] : hello.split(" ");
+            if (parts.length == 1 && parts[0].equals("PLAY")) {
+                joinLobby(channel, in);
+            } else if (parts.length == 2 && parts[0].equals("SPECTATE") && parts[1].equals("ALL")) {
+                System.out.println("Observer of all games connected from " + socket.getInetAddress());
+                hall.subscribe(channel);
+            } else if (parts.length == 2 && parts[0].equals("SPECTATE")) {
+                GameSession game = games.get(Long.parseLong(parts[1]));
+                if (game == null) {
+                    new PrintWriter(socket.getOutputStream(), true).println("ERROR Unknown game " + parts[1]);
+                    socket.close();
+                    return;
+                }
+                System.out.println("Spectator connected to game " + game.getId() + " from " + socket.getInetAddress());
+                game.getFeed().subscribe(channel);
+            } else if (parts.length == 4 && parts[0].equals("RESUME")) {
+                resume(socket, in, Long.parseLong(parts[1]), parts[2], Long.parseLong(parts[3]));
+            } else {
+                System.out.println("Unknown handshake from " + socket.getInetAddress() + ": " + hello);
+                socket.close();
+            }
+        } catch (IOException | NumberFormatException ex) {
+            System.out.println("Handshake failed for " + socket.getInetAddress());
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Puts a reconnecting player back into its slot. Only the slot's token is accepted; with it,
+     * the player's previous connection is closed if the server still thinks it is live.
+     */
+    private void resume(Socket socket, BufferedReader in, long gameId, String token, long lastSeq)
+            throws IOException {
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        GameSession game = games.get(gameId);
+        int slot = game == null ? -1 : game.findSlot(token);
+        if (slot == -1) {
+            out.println("ERROR Cannot resume game " + gameId);
+            socket.close();
+            return;
+        }
+        System.out.println("Player reconnected to game " + gameId + " from " + socket.getInetAddress()
+                + " at seq " + lastSeq + " (server at " + game.getSeq() + ")");
+        int generation;
+        synchronized (game) {
+            generation = game.attach(slot, out);
+            game.resync(slot, lastSeq);
+        }
+        executor.execute(new ClientHandler(socket, in, game, slot, generation));
+    }
+
+    // Pairs players in connection order: the first one waits, the second one starts a game.
+    private synchronized void joinLobby(SocketChannel channel, BufferedReader in) throws IOException {
+        if (waitingPlayer == null || !waitingPlayer.isOpen()) {
+            waitingPlayer = channel;
+            waitingReader = in;
+            System.out.println("Player 1 connected from " + channel.socket().getInetAddress());
+            return;
+        }
+        Socket player1 = waitingPlayer.socket();
+        Socket player2 = channel.socket();
+        System.out.println("Player 2 connected from " + player2.getInetAddress());
+
+        long id = nextGameId.getAndIncrement();
+        GameSession game = new GameSession(id, new SpectatorFeed(feedWriters, hall, id), journal, tokens,
+                () -> games.remove(id));
+        games.put(id, game);
+        hall.register(game.getFeed());
+        System.out.println("Game " + id + " started.");
+
+        // Tell both players the game id, which they share with spectators, and their own resume token.
+        PrintWriter out1 = new PrintWriter(player1.getOutputStream(), true);
+        PrintWriter out2 = new PrintWriter(player2.getOutputStream(), true);
+        out1.println("GAME " + id + " " + game.getToken(0));
+        out2.println("GAME " + id + " " + game.getToken(1));
+
+        executor.execute(new ClientHandler(player1, waitingReader, game, 0, game.attach(0, out1)));
+        executor.execute(new ClientHandler(player2, in, game, 1, game.attach(1, out2)));
+        waitingPlayer = null;
+        waitingReader = null;
+    }
+}
+
+class ClientHandler implements Runnable {
+    // Time from reading a player's message to having validated and forwarded it.
+    private static final Metrics.Histogram LATENCY = Metrics.histogram("server.messageLatency", "us");
+    // -Dchess.debug=true logs every player message; off by default, it is on the hot path.
+    private static final boolean DEBUG = Boolean.getBoolean("chess.debug");
+
+    private Socket socket;
+    private BufferedReader in;
+    private GameSession game;
+    private int slot;
+    private int generation;
+
+    public ClientHandler(Socket socket, BufferedReader in, GameSession game, int slot, int generation) {
+        this.socket = socket;
+        this.in = in;
+        this.game = game;
+        this.slot = slot;
+        this.generation = generation;
+    }
+
+    @Override
+    public void run() {
+        try {
+            String message;
+            while ((message = in.readLine()) != null) {
+                long received = System.nanoTime();
+                MessageEvent event = new MessageEvent();
+                event.begin();
+                if (DEBUG) System.out.println("Received from " + socket.getInetAddress() + ": " + message);
+                // The game validates the move and forwards it to the opponent and the spectators.
+                game.accept(slot, message);
+                LATENCY.record((System.nanoTime() - received) / 1000);
+                if (event.shouldCommit()) {
+                    event.gameId = game.getId();
+                    event.slot = slot;
+                    event.message = message;
+                    event.commit();
+                }
+            }
+        } catch (IOException ex) {
+            System.out.println("Connection closed for " + socket.getInetAddress());
+        } finally {
+            game.playerLeft(slot, generation);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import com.example.projectchess.backend.Metrics;
+
+/**
+ * One spectator connection. Queued messages are flushed by a shared writer thread
+ * in batches, so a burst of moves becomes a single gathering write. The channel is
+ * non-blocking; when its socket is full, the rest waits in the queue until {@link FeedWriters}
+ * sees the socket writable again, or drops the spectator if it never does.
+ */
+final class FeedSubscriber implements Runnable {
+    // A spectator that falls this far behind is disconnected instead of being buffered forever.
+    private static final int MAX_PENDING = 4096;
+    // Messages waiting for this connection's writer, sampled at every enqueue.
+    private static final Metrics.Histogram QUEUE_DEPTH = Metrics.histogram("feed.queueDepth", "");
+
+    private final SocketChannel channel;
+    private final FeedWriters writers;
+    private final Consumer<FeedSubscriber> onDropped;
+    // Messages not fully written yet; the ones at the head may be partly written.
+    private final ArrayDeque<ByteBuffer> pending = new ArrayDeque<>();
+    private boolean scheduled;
+    private boolean dropped;
+    private boolean finishing;
+    private long blockedSince; // nanoTime the socket was found full, 0 while it takes bytes
+
+    /**
+     * Switches the channel to non-blocking mode. onDropped is run on a writer thread once
+     * the connection is gone, never under this lock.
+     */
+    FeedSubscriber(SocketChannel channel, FeedWriters writers, Consumer<FeedSubscriber> onDropped)
+            throws IOException {
+        channel.configureBlocking(false);
+        this.channel = channel;
+        this.writers = writers;
+        this.onDropped = onDropped;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    synchronized void enqueue(ByteBuffer message) {
+        if (dropped) return;
+        if (pending.size() >= MAX_PENDING) {
+            System.out.println("Dropping slow spectator " + channel.socket().getInetAddress());
+            drop();
+            return;
+        }
+        // Each spectator gets its own view of the shared bytes.
+        pending.add(message.duplicate());
+        QUEUE_DEPTH.record(pending.size());
+        if (!scheduled) {
+            scheduled = true;
+            writers.execute(this);
+        }
+    }
+
+    // Queues the final message; the connection is closed after it has been written.
+    synchronized void finish(ByteBuffer end) {
+        enqueue(end);
+        finishing = true;
+    }
+
+    /**
+     * Writes as much of the queue as the socket takes without blocking. Messages queued meanwhile
+     * go out in the next run; what the socket did not take waits until it is writable.
+     */
+    @Override
+    public void run() {
+        ByteBuffer[] batch;
+        synchronized (this) {
+            if (dropped) return;
+            blockedSince = 0;
+            batch = pending.toArray(new ByteBuffer[0]);
+        }
+        try {
+            channel.write(batch);
+        } catch (IOException ex) {
+            synchronized (this) {
+                drop();
+            }
+            return;
+        }
+        synchronized (this) {
+            if (dropped) return;
+            while (!pending.isEmpty() && !pending.peekFirst().hasRemaining()) {
+                pending.removeFirst();
+            }
+            if (batch[batch.length - 1].hasRemaining()) {
+                blockedSince = System.nanoTime();
+                writers.awaitWritable(this);
+            } else if (!pending.isEmpty()) {
+                writers.execute(this);
+            } else {
+                scheduled = false;
+                if (finishing) drop();
+            }
+        }
+    }
+
+    // Called by the poller while this subscriber waits for its socket.
+    synchronized void dropIfStalled(long now) {
+        if (dropped || blockedSince == 0) return;
+        if (now - blockedSince > TimeUnit.MILLISECONDS.toNanos(FeedWriters.STALL_TIMEOUT_MS)) {
+            System.out.println("Dropping stalled spectator " + channel.socket().getInetAddress());
+            drop();
+        }
+    }
+
+    static void close(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Must be called while holding this subscriber's lock.
+    private void drop() {
+        dropped = true;
+        pending.clear();
+        close(channel);
+        // Removal is handed off so the feed lock is never taken while holding this one.
+        writers.execute(() -> onDropped.accept(this));
+    }
+}
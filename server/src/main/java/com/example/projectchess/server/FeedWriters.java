@@ -0,0 +1,90 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The small shared pool that drains every spectator's queue, plus one thread that waits on a
+ * Selector for spectator sockets that cannot take more bytes. Spectator channels are non-blocking:
+ * a writer sends what the socket accepts and moves on, and the subscriber is run again once its
+ * socket is writable. A spectator whose socket stays full for {@link #STALL_TIMEOUT_MS} is dropped,
+ * so one that stops reading never holds a writer thread.
+ */
+final class FeedWriters implements Executor {
+    static final long STALL_TIMEOUT_MS = 10_000;
+    // How often the poller looks for stalled spectators when no socket becomes writable.
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private final ExecutorService threads;
+    private final Selector selector;
+    // Subscribers to register for OP_WRITE; registration happens on the poller thread.
+    private final Queue<FeedSubscriber> waiting = new ConcurrentLinkedQueue<>();
+
+    FeedWriters(int threads) throws IOException {
+        this.threads = Executors.newFixedThreadPool(threads);
+        this.selector = Selector.open();
+        Thread poller = new Thread(this::poll, "feed-poller");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        threads.execute(task);
+    }
+
+    /**
+     * Runs the subscriber on a writer thread again once its channel can take more bytes.
+     */
+    void awaitWritable(FeedSubscriber subscriber) {
+        waiting.add(subscriber);
+        selector.wakeup();
+    }
+
+    private void poll() {
+        while (true) {
+            try {
+                selector.select(POLL_INTERVAL_MS);
+            } catch (IOException ex) {
+                System.out.println("Spectator poller failed: " + ex.getMessage());
+                return;
+            }
+            for (SelectionKey key : selector.selectedKeys()) {
+                if (!key.isValid()) continue;
+                key.interestOps(0);
+                execute((FeedSubscriber) key.attachment());
+            }
+            selector.selectedKeys().clear();
+            for (FeedSubscriber subscriber = waiting.poll(); subscriber != null; subscriber = waiting.poll()) {
+                register(subscriber);
+            }
+            long now = System.nanoTime();
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid() && key.interestOps() != 0) {
+                    ((FeedSubscriber) key.attachment()).dropIfStalled(now);
+                }
+            }
+        }
+    }
+
+    private void register(FeedSubscriber subscriber) {
+        try {
+            SelectionKey key = subscriber.getChannel().keyFor(selector);
+            if (key == null) {
+                subscriber.getChannel().register(selector, SelectionKey.OP_WRITE, subscriber);
+            } else {
+                key.interestOps(SelectionKey.OP_WRITE);
+            }
+        } catch (ClosedChannelException | CancelledKeyException ex) {
+            // Dropped while waiting; there is nothing left to write.
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only write-ahead journal of accepted moves, split into memory-mapped segment files.
+ * Every record has the same fixed size:
+ *
+ *   gameId (8) | seq (8) | move (4) | check (4) | timestamp (8)
+ *
+ * The move is packed by {@link #encodeMove}, with the slot of the player who made it from
+ * {@link #withSlot}; {@link #END_OF_GAME} marks a finished game.
+ * A record whose check word does not match its fields (an unwritten or torn record)
+ * ends the journal on replay.
+ *
+ * Records are numbered by their position in the journal, segment * SEGMENT_RECORDS + index. When a
+ * segment fills up, the journal asks its {@link Retention} which records recovery still needs and
+ * saves that as a checkpoint: the first record of the oldest game in progress and the next game id.
+ * The segments before that record only hold finished games; they are retired to the finished/
+ * subdirectory, where recovery no longer reads them but tools such as JournalIndexer still can.
+ */
+public class GameJournal implements AutoCloseable {
+    public static final int RECORD_SIZE = 32;
+    public static final int SEGMENT_RECORDS = 1 << 20; // 32 MiB per segment
+    public static final int END_OF_GAME = -1;
+
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String FINISHED = "finished";
+
+    // Fsync after this many records, or after FLUSH_INTERVAL_MS, whichever comes first.
+    private static final int FSYNC_BATCH = 512;
+    private static final long FLUSH_INTERVAL_MS = 10;
+
+    private final Path directory;
+    private final ScheduledExecutorService flusher;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int segmentIndex;
+    private int flushedUpTo;
+    private int unflushed;
+    private Retention retention;
+    private final long recoveryStart;
+    private final long checkpointGameId;
+
+    public interface RecordVisitor {
+        void visit(long position, long gameId, long seq, int move, long timestamp);
+    }
+
+    /**
+     * What the journal's owner still needs; asked whenever a segment fills up.
+     */
+    public interface Retention {
+        // Position of the first record of the oldest game in progress, or next if none is.
+        long oldestInProgress(long next);
+
+        // A game id higher than every game journaled so far.
+        long nextGameId();
+    }
+
+    /**
+     * Opens the journal in the given directory and positions it after the last valid record.
+     */
+    public GameJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> segments = listSegments(directory);
+        if (segments.isEmpty()) {
+            openSegment(0);
+        } else {
+            openSegment(segmentNumber(segments.get(segments.size() - 1)));
+            int records = countValidRecords(segment);
+            clearTail(segment, records);
+            segment.position(records * RECORD_SIZE);
+            flushedUpTo = segment.position();
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        long[] checkpoint = readCheckpoint(directory);
+        recoveryStart = checkpoint[0];
+        checkpointGameId = checkpoint[1];
+    }
+
+    /**
+     * Enables checkpoints and segment retirement. Without a retention nothing is ever retired.
+     */
+    public synchronized void setRetention(Retention retention) {
+        this.retention = retention;
+    }
+
+    // The position recovery replays from: every game that started before it had finished.
+    public long getRecoveryStart() {
+        return recoveryStart;
+    }
+
+    // The next game id as of the last checkpoint; games before the recovery start are not replayed.
+    public long getCheckpointGameId() {
+        return checkpointGameId;
+    }
+
+    public static int encodeMove(int sRow, int sCol, int eRow, int eCol) {
+        return (sRow * 8 + sCol) << 6 | (eRow * 8 + eCol);
+    }
+
+    // Returns {sRow, sCol, eRow, eCol} for a move packed by encodeMove.
+    public static int[] decodeMove(int move) {
+        int from = (move >>> 6) & 63, to = move & 63;
+        return new int[]{from / 8, from % 8, to / 8, to % 8};
+    }
+
+    // Marks an encoded move as made by the player in the given slot (0 or 1).
+    public static int withSlot(int move, int slot) {
+        return move | slot << 12;
+    }
+
+    public static int slotOf(int move) {
+        return (move >>> 12) & 1;
+    }
+
+    /**
+     * Appends one record and returns its position. The write is durable after the next batched fsync.
+     */
+    public synchronized long append(long gameId, long seq, int move, long timestamp) throws IOException {
+        if (!segment.hasRemaining()) {
+            flush();
+            channel.close();
+            openSegment(segmentIndex + 1);
+            if (retention != null) retire();
+        }
+        long position = nextPosition();
+        segment.putLong(gameId);
+        segment.putLong(seq);
+        segment.putInt(move);
+        segment.putInt(check(gameId, seq, move, timestamp));
+        segment.putLong(timestamp);
+        if (++unflushed >= FSYNC_BATCH) {
+            flush();
+        }
+        return position;
+    }
+
+    /**
+     * Returns the position the next record is appended at. A record appended later never gets a
+     * lower one, so this is a safe start for a game whose first record is about to be appended.
+     */
+    public synchronized long nextPosition() {
+        return (long) segmentIndex * SEGMENT_RECORDS + segment.position() / RECORD_SIZE;
+    }
+
+    /**
+     * Saves a checkpoint, then retires the segments before it. The checkpoint is written first,
+     * so a crash in between leaves segments that recovery skips, never a checkpoint past a live one.
+     */
+    private void retire() throws IOException {
+        long next = (long) segmentIndex * SEGMENT_RECORDS;
+        long start = retention.oldestInProgress(next);
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temporary, start + " " + retention.nextGameId() + "\n", StandardCharsets.US_ASCII);
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Path finished = directory.resolve(FINISHED);
+        Files.createDirectories(finished);
+        for (Path path : listSegments(directory)) {
+            if ((long) (segmentNumber(path) + 1) * SEGMENT_RECORDS > start) break;
+            Files.move(path, finished.resolve(path.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    // Forces the records written since the last flush to disk.
+    public synchronized void flush() {
+        int end = segment.position();
+        if (end > flushedUpTo) {
+            segment.force(flushedUpTo, end - flushedUpTo);
+            flushedUpTo = end;
+        }
+        unflushed = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdown();
+        flush();
+        channel.close();
+    }
+
+    /**
+     * Reads every valid record in the directory in append order, retired segments included.
+     */
+    public static void replay(Path directory, RecordVisitor visitor) throws IOException {
+        replay(directory, 0, visitor);
+    }
+
+    /**
+     * Reads the valid records from the given position on, in append order. Segments that end
+     * before it are not opened.
+     */
+    public static void replay(Path directory, long from, RecordVisitor visitor) throws IOException {
+        if (!Files.isDirectory(directory)) return;
+        List<Path> segments = new ArrayList<>(listSegments(directory));
+        Path finished = directory.resolve(FINISHED);
+        if (Files.isDirectory(finished)) segments.addAll(listSegments(finished));
+        segments.sort(Comparator.comparing(Path::getFileName));
+        for (Path path : segments) {
+            long first = (long) segmentNumber(path) * SEGMENT_RECORDS;
+            if (first + SEGMENT_RECORDS <= from) continue;
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                if (from > first) buffer.position((int) (from - first) * RECORD_SIZE);
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    long position = first + buffer.position() / RECORD_SIZE;
+                    long gameId = buffer.getLong();
+                    long seq = buffer.getLong();
+                    int move = buffer.getInt();
+                    int check = buffer.getInt();
+                    long timestamp = buffer.getLong();
+                    if (check != check(gameId, seq, move, timestamp)) return;
+                    visitor.visit(position, gameId, seq, move, timestamp);
+                }
+            }
+        }
+    }
+
+    // Returns {recovery start, next game id} from the last checkpoint, or zeros if there is none.
+    private static long[] readCheckpoint(Path directory) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT);
+        if (!Files.exists(checkpoint)) return new long[2];
+        String[] fields = Files.readString(checkpoint, StandardCharsets.US_ASCII).trim().split(" ");
+        return new long[]{Long.parseLong(fields[0]), Long.parseLong(fields[1])};
+    }
+
+    private void openSegment(int index) throws IOException {
+        segmentIndex = index;
+        channel = FileChannel.open(segmentPath(directory, index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SEGMENT_RECORDS * RECORD_SIZE);
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        flushedUpTo = 0;
+    }
+
+    private static int countValidRecords(MappedByteBuffer buffer) {
+        int records = 0;
+        for (int offset = 0; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+            long gameId = buffer.getLong(offset);
+            long seq = buffer.getLong(offset + 8);
+            int move = buffer.getInt(offset + 16);
+            int check = buffer.getInt(offset + 20);
+            long timestamp = buffer.getLong(offset + 24);
+            if (check != check(gameId, seq, move, timestamp)) break;
+            records++;
+        }
+        return records;
+    }
+
+    /**
+     * Zeroes everything after the last valid record. Pages of a mapped segment can reach the disk
+     * out of order, so intact records may follow a torn one; appending over the tear must not bring
+     * them back.
+     */
+    private static void clearTail(MappedByteBuffer buffer, int records) {
+        boolean cleared = false;
+        for (int offset = records * RECORD_SIZE; offset + RECORD_SIZE <= buffer.capacity(); offset += RECORD_SIZE) {
+            for (int i = 0; i < RECORD_SIZE; i += 8) {
+                if (buffer.getLong(offset + i) == 0) continue;
+                buffer.put(offset, new byte[RECORD_SIZE]);
+                cleared = true;
+                break;
+            }
+        }
+        if (cleared) buffer.force();
+    }
+
+    // Never zero, so the zero-filled tail of a preallocated segment never looks like a record.
+    private static int check(long gameId, long seq, int move, long timestamp) {
+        long h = gameId * 0x9E3779B97F4A7C15L;
+        h = (h ^ seq) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ move) * 0x165667B19E3779F9L;
+        h = (h ^ timestamp) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) | 1;
+    }
+
+    private static int segmentNumber(Path segment) {
+        return Integer.parseInt(segment.getFileName().toString().substring(8, 16));
+    }
+
+    private static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("journal-%08d.seg", index));
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().matches("journal-\\d{8}\\.seg"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.Color;
+import com.example.projectchess.backend.Position;
+import com.example.projectchess.backend.Tablebase;
+
+/**
+ * A game hosted by the server: two player slots, the server's own copy of the board,
+ * and the feed their moves are broadcast on. Every accepted move is journaled and numbered;
+ * the number (seq) is sent along with the move so a player that drops can resume from it.
+ *
+ * The board is only touched under the session's lock. After every accepted move the session
+ * publishes an immutable snapshot of the position, which any thread may read without the lock.
+ */
+class GameSession {
+    // Looked up once: getDefault checks the file system until a tablebase directory exists.
+    private static final Tablebase TABLEBASE = Tablebase.getDefault();
+
+    private final long id;
+    private final SpectatorFeed feed;
+    private final GameJournal journal;
+    private final Runnable onFinished;
+    private final String[] tokens; // per slot, required to resume
+    private final ChessBoard board = new ChessBoard();
+    private volatile Position position = board.snapshot();
+    private long seq; // number of accepted moves
+    // Journal position of the game's first move while the game is in progress; read without the lock.
+    private volatile long journalStart = Long.MAX_VALUE;
+    private String result; // final GAMEOVER message, once the game is over
+
+    // Per slot: the player's current connection, its color (fixed by the first accepted move),
+    // and a generation counter so a handler for a replaced connection cannot disconnect its successor.
+    private final PrintWriter[] players = new PrintWriter[2];
+    private final Color[] colors = new Color[2];
+    private final int[] generations = new int[2];
+
+    GameSession(long id, SpectatorFeed feed, GameJournal journal, ResumeTokens tokens, Runnable onFinished) {
+        this.id = id;
+        this.feed = feed;
+        this.journal = journal;
+        this.tokens = new String[]{tokens.token(id, 0), tokens.token(id, 1)};
+        this.onFinished = onFinished;
+        feed.checkpoint(0, position.toFen());
+    }
+
+    long getId() {
+        return id;
+    }
+
+    SpectatorFeed getFeed() {
+        return feed;
+    }
+
+    // The position after the last accepted move; needs no lock.
+    Position getPosition() {
+        return position;
+    }
+
+    synchronized long getSeq() {
+        return seq;
+    }
+
+    synchronized boolean isOver() {
+        return result != null;
+    }
+
+    /**
+     * Returns the position of the game's first journal record, which recovery needs while the
+     * game is in progress; Long.MAX_VALUE before the first move and once the game is over.
+     */
+    long getJournalStart() {
+        return journalStart;
+    }
+
+    /**
+     * Puts a player connection into a slot, closing any connection already there.
+     * Returns the slot's new generation.
+     */
+    synchronized int attach(int slot, PrintWriter out) {
+        if (players[slot] != null) players[slot].close();
+        players[slot] = out;
+        return ++generations[slot];
+    }
+
+    // The token the player in a slot is given with the game id, and must show to resume.
+    String getToken(int slot) {
+        return tokens[slot];
+    }
+
+    /**
+     * Returns the slot the resume token belongs to, or -1 if it is not this game's.
+     */
+    int findSlot(String token) {
+        for (int slot = 0; slot < 2; slot++) {
+            if (ResumeTokens.matches(tokens[slot], token)) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Brings a reconnecting player up to date from the last seq it has applied: the missing moves
+     * while they are still in the feed's tail, otherwise a single snapshot of the current position.
+     * Either way the cost does not grow with the length of the game.
+     */
+    synchronized void resync(int slot, long lastSeq) {
+        PrintWriter out = players[slot];
+        List<String> missing = lastSeq <= seq ? feed.movesSince(lastSeq) : null;
+        if (missing == null) {
+            out.println("SNAPSHOT " + seq + " " + position.toFen());
+        } else {
+            missing.forEach(out::println);
+        }
+        if (result != null) out.println(result);
+    }
+
+    /**
+     * Validates a "MOVE sRow,sCol eRow,eCol", "GAMEOVER RESIGN" or "GAMEOVER DRAW" message from the
+     * player in a slot. An accepted move is journaled first and only then sent to the opponent and
+     * the spectators as "MOVE sRow,sCol eRow,eCol seq" and acknowledged to the mover with "ACK seq";
+     * if the journal fails, the move is taken back and nobody hears of it.
+     * Whichever player makes the first move plays White.
+     *
+     * The server decides when a game is over: after a move that mates, stalemates or reaches a
+     * tablebase draw, it sends "GAMEOVER WHITE", "GAMEOVER BLACK" or "GAMEOVER DRAW" to both players
+     * and the spectators. A player may only resign, or claim a draw under the fifty-move rule,
+     * on its own turn.
+     *
+     * Anything rejected, such as a move by the player whose turn it is not, gets a snapshot back so
+     * the sender's board snaps to the server's.
+     */
+    synchronized void accept(int slot, String message) throws IOException {
+        PrintWriter opponent = players[1 - slot];
+        if (message.startsWith("GAMEOVER")) {
+            String claimed = claim(slot, message);
+            if (claimed == null) {
+                reject(slot, message);
+            } else {
+                finish(claimed);
+            }
+            return;
+        }
+        int[] move = parseMove(message);
+        Color mover = board.getSideToMove();
+        if (move == null || result != null || (colors[slot] != null && colors[slot] != mover)
+                || !board.movePiece(move[0], move[1], move[2], move[3], mover)) {
+            reject(slot, message);
+            return;
+        }
+        int encoded = GameJournal.encodeMove(move[0], move[1], move[2], move[3]);
+        // A segment may fill up and be retired while the first record is appended; the game must
+        // already count as in progress then, or the checkpoint could skip its start.
+        if (seq == 0) journalStart = journal.nextPosition();
+        try {
+            long record = journal.append(id, seq + 1, GameJournal.withSlot(encoded, slot),
+                    System.currentTimeMillis());
+            if (seq == 0) journalStart = record;
+        } catch (IOException | RuntimeException ex) {
+            if (seq == 0) journalStart = Long.MAX_VALUE;
+            board.loadFen(position.toFen()); // position still holds the board before the move
+            throw ex;
+        }
+        assignColors(slot, mover);
+        commit(move);
+        players[slot].println("ACK " + seq);
+        if (opponent != null) opponent.println(moveMessage(move));
+        String forced = adjudicate();
+        if (forced != null) finish(forced);
+    }
+
+    private void reject(int slot, String message) {
+        System.out.println("Rejected in game " + id + ": " + message);
+        players[slot].println("SNAPSHOT " + seq + " " + position.toFen());
+        if (result != null) players[slot].println(result);
+    }
+
+    // The result the position forces, or null while the game goes on.
+    private String adjudicate() {
+        Color toMove = board.getSideToMove();
+        if (!board.hasLegalMoves(toMove)) {
+            return board.isKingInCheck(toMove) ? "GAMEOVER " + opposite(toMove) : "GAMEOVER DRAW";
+        }
+        Tablebase.Result endgame = TABLEBASE != null ? TABLEBASE.probe(board) : null;
+        if (endgame != null && endgame.getOutcome() == Tablebase.Outcome.DRAW) return "GAMEOVER DRAW";
+        return null;
+    }
+
+    // The result a player's resignation or draw claim stands for, or null if it is not allowed.
+    private String claim(int slot, String message) {
+        Color toMove = board.getSideToMove();
+        if (result != null || colors[slot] != toMove) return null;
+        return switch (message) {
+            case "GAMEOVER RESIGN" -> "GAMEOVER " + opposite(toMove);
+            case "GAMEOVER DRAW" -> position.getHalfmoveClock() >= 100 ? "GAMEOVER DRAW" : null;
+            default -> null;
+        };
+    }
+
+    // Journals the end of the game, then announces the result to both players and the spectators.
+    private void finish(String gameOver) throws IOException {
+        journal.append(id, seq + 1, GameJournal.END_OF_GAME, System.currentTimeMillis());
+        result = gameOver;
+        journalStart = Long.MAX_VALUE;
+        feed.publishResult(gameOver);
+        for (PrintWriter player : players) {
+            if (player != null) player.println(gameOver);
+        }
+    }
+
+    private static Color opposite(Color color) {
+        return color == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
+
+    /**
+     * Re-applies the journal record at a position while the server is recovering;
+     * nothing is journaled again.
+     */
+    synchronized void replay(long record, int encodedMove) {
+        if (encodedMove == GameJournal.END_OF_GAME) {
+            result = "GAMEOVER";
+            journalStart = Long.MAX_VALUE;
+            return;
+        }
+        int[] move = GameJournal.decodeMove(encodedMove);
+        Color mover = board.getSideToMove();
+        if (result == null && board.movePiece(move[0], move[1], move[2], move[3], mover)) {
+            if (seq == 0) journalStart = record;
+            assignColors(GameJournal.slotOf(encodedMove), mover);
+            commit(move);
+        }
+    }
+
+    // Fixes the players' colors when the first move is accepted; later moves leave them alone.
+    private void assignColors(int slot, Color mover) {
+        if (colors[slot] != null) return;
+        colors[slot] = mover;
+        colors[1 - slot] = opposite(mover);
+    }
+
+    // Numbers a move already made on the board and journaled, and publishes it to the spectators.
+    private void commit(int[] move) {
+        seq++;
+        position = board.snapshot();
+        feed.publishMove(moveMessage(move));
+        if (seq % SpectatorFeed.CHECKPOINT_INTERVAL == 0) {
+            feed.checkpoint(seq, position.toFen());
+        }
+    }
+
+    private String moveMessage(int[] move) {
+        return "MOVE " + move[0] + "," + move[1] + " " + move[2] + "," + move[3] + " " + seq;
+    }
+
+    // Parses "MOVE sRow,sCol eRow,eCol [seq]" into {sRow, sCol, eRow, eCol}, or null if malformed.
+    static int[] parseMove(String message) {
+        String[] parts = message.split(" ");
+        if (parts.length < 3 || !parts[0].equals("MOVE")) return null;
+        try {
+            String[] src = parts[1].split(",");
+            String[] dst = parts[2].split(",");
+            return new int[]{Integer.parseInt(src[0]), Integer.parseInt(src[1]),
+                    Integer.parseInt(dst[0]), Integer.parseInt(dst[1])};
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Called by a player's handler when its connection ends. The game stays resumable until it is
+     * over; a finished game is dropped once both players are gone.
+     */
+    synchronized void playerLeft(int slot, int generation) {
+        if (generations[slot] != generation) return;
+        players[slot] = null;
+        if (result != null && players[0] == null && players[1] == null) {
+            System.out.println("Game " + id + " finished.");
+            feed.close();
+            onFinished.run();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every game in progress on one stream, for observers that watch many boards at once
+ * ("SPECTATE ALL"). Each line is a game's own feed message prefixed with its id:
+ * "BOARD gameId SNAPSHOT seq fen", "BOARD gameId MOVE sRow,sCol eRow,eCol seq",
+ * "BOARD gameId GAMEOVER ..." and "BOARD gameId END" once the game is gone.
+ *
+ * A joiner first gets the history of every registered game, in one write. A move played while
+ * it joins can arrive both in that history and live; observers skip moves by seq, as players do.
+ */
+class HallFeed {
+    private final FeedWriters writers;
+    // Feeds of the registered games, in the order they started.
+    private final Map<Long, SpectatorFeed> games = new LinkedHashMap<>();
+    private final List<FeedSubscriber> subscribers = new ArrayList<>();
+
+    HallFeed(FeedWriters writers) {
+        this.writers = writers;
+    }
+
+    // Announces a game: its history is sent to current observers and its moves are relayed from now on.
+    synchronized void register(SpectatorFeed feed) {
+        games.put(feed.getGameId(), feed);
+        if (subscribers.isEmpty()) return;
+        for (String message : feed.history()) {
+            broadcast(encode(feed.getGameId(), message));
+        }
+    }
+
+    synchronized void unregister(long gameId) {
+        if (games.remove(gameId) != null) {
+            broadcast(encode(gameId, "END"));
+        }
+    }
+
+    /**
+     * Encodes a game's message once for every observer. Games that are not registered,
+     * such as ones still being replayed from the journal, are skipped.
+     */
+    synchronized void relay(long gameId, String message) {
+        if (subscribers.isEmpty() || !games.containsKey(gameId)) return;
+        broadcast(encode(gameId, message));
+    }
+
+    /**
+     * Adds an observer. The history of every game goes out as a single message, so it counts once
+     * against the subscriber's queue limit however many games are in progress.
+     */
+    synchronized void subscribe(SocketChannel channel) throws IOException {
+        FeedSubscriber subscriber = new FeedSubscriber(channel, writers, this::remove);
+        List<String> catchUp = new ArrayList<>();
+        for (SpectatorFeed feed : games.values()) {
+            for (String message : feed.history()) {
+                catchUp.add("BOARD " + feed.getGameId() + " " + message);
+            }
+        }
+        if (!catchUp.isEmpty()) subscriber.enqueue(SpectatorFeed.encode(String.join("\n", catchUp)));
+        subscribers.add(subscriber);
+    }
+
+    synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void broadcast(ByteBuffer encoded) {
+        for (FeedSubscriber subscriber : new ArrayList<>(subscribers)) {
+            subscriber.enqueue(encoded);
+        }
+    }
+
+    private synchronized void remove(FeedSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private static ByteBuffer encode(long gameId, String message) {
+        return SpectatorFeed.encode("BOARD " + gameId + " " + message);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.PositionIndex;
+import com.example.projectchess.backend.PositionIndexBuilder;
+
+/**
+ * Adds the games finished on the server since the last run to a {@link PositionIndex}, under
+ * their server game ids. Each game is played through a ChessBoard as GameSession does and indexed
+ * when its end-of-game record is read.
+ *
+ * A run stores in its segment the journal position where the oldest game still in progress
+ * started, and the next run replays from there, so the journal read grows with the games in
+ * flight rather than with its length. Every game that started before that point has been indexed;
+ * records of those games past it are skipped, as on recovery. A game that started after it and
+ * finished before the previous run ended is indexed already, which the index itself tells.
+ * A run that fails part way leaves nothing to undo. Safe to run while the server is writing the
+ * journal. Give it an index directory of its own: games imported from PGN are numbered independently.
+ *
+ * Run with: java com.example.projectchess.server.JournalIndexer [journal-directory] [index-directory]
+ */
+public class JournalIndexer {
+    public static void main(String[] args) throws IOException {
+        Path journal = Path.of(args.length > 0 ? args[0] : "journal");
+        Path directory = Path.of(args.length > 1 ? args[1] : "positions");
+        long start = System.nanoTime();
+        Path work = Files.createTempDirectory("position-runs");
+        try (PositionIndex index = PositionIndex.open(directory)) {
+            long from = index.getSourceOffset();
+            PositionIndexBuilder builder =
+                    new PositionIndexBuilder(0, Runtime.getRuntime().availableProcessors(), work);
+            Map<Long, GameReplay> games = new HashMap<>();
+            long[] next = {from};
+            long[] records = {0};
+            int[] added = {0};
+            try {
+                GameJournal.replay(journal, from, (position, gameId, seq, move, timestamp) -> {
+                    next[0] = position + 1;
+                    records[0]++;
+                    GameReplay game = games.get(gameId);
+                    if (game == null) {
+                        // Started before the replay did, so indexed by an earlier run.
+                        if (seq != 1 || move == GameJournal.END_OF_GAME) return;
+                        game = new GameReplay(position);
+                        games.put(gameId, game);
+                    }
+                    if (move != GameJournal.END_OF_GAME) {
+                        game.play(move);
+                        return;
+                    }
+                    games.remove(gameId);
+                    if (isIndexed(index, gameId, game)) return;
+                    try {
+                        builder.addGame(gameId, game.keys, game.plies + 1);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    added[0]++;
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            long resume = next[0];
+            for (GameReplay game : games.values()) resume = Math.min(resume, game.start);
+            builder.setSourceOffset(resume);
+            Path segment = builder.write(directory);
+            System.out.printf("Indexed %,d finished games (%,d still in progress) from %,d journal records%s in %d ms%n",
+                    added[0], games.size(), records[0], segment != null ? " into " + segment : "",
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            deleteDirectory(work);
+        }
+    }
+
+    // True if a previous run indexed the game: its final position lists it.
+    private static boolean isIndexed(PositionIndex index, long gameId, GameReplay game) {
+        boolean[] found = {false};
+        index.forEach(game.keys[game.plies], (id, ply) -> found[0] |= id == gameId);
+        return found[0];
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * One game's position keys so far, the start position first.
+     */
+    private static final class GameReplay {
+        private final ChessBoard board = new ChessBoard();
+        private final long start; // journal position of the game's first move
+        private long[] keys = new long[128];
+        private int plies;
+
+        GameReplay(long start) {
+            this.start = start;
+            keys[0] = board.zobristKey();
+        }
+
+        // Moves the journal holds were legal when played; one that is not is skipped, as on recovery.
+        void play(int encodedMove) {
+            int[] move = GameJournal.decodeMove(encodedMove);
+            if (!board.movePiece(move[0], move[1], move[2], move[3], board.getSideToMove())) return;
+            if (++plies == keys.length) keys = Arrays.copyOf(keys, keys.length * 2);
+            keys[plies] = board.zobristKey();
+        }
+    }
+}
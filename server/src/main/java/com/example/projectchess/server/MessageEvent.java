@@ -0,0 +1,25 @@
+package com.example.projectchess.server;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one message from a player, from the moment it is read until it has been
+ * validated and forwarded to the opponent and spectators.
+ */
+@Name("com.example.projectchess.Message")
+@Label("Player Message")
+@Category({"Chess", "Server"})
+@Description("A player's message handled by the server")
+class MessageEvent extends jdk.jfr.Event {
+    @Label("Game")
+    long gameId;
+
+    @Label("Slot")
+    int slot;
+
+    @Label("Message")
+    String message;
+}
@@ -0,0 +1,70 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The tokens players show to resume a game: an HMAC of the game id and slot under a random key
+ * kept beside the journal. A token cannot be guessed from the game id, and stays valid across
+ * restarts without being stored per game.
+ */
+final class ResumeTokens {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String KEY_FILE = "resume.key";
+    private static final int KEY_BYTES = 32;
+    private static final int TOKEN_BYTES = 16;
+
+    private final SecretKeySpec key;
+
+    /**
+     * Loads the key from the directory, creating it on first use.
+     */
+    ResumeTokens(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(KEY_FILE);
+        if (!Files.exists(file)) {
+            byte[] bytes = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(bytes);
+            try {
+                Files.write(file, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+            } catch (FileAlreadyExistsException ignored) {
+                // Another server created it first; use theirs.
+            } catch (UnsupportedOperationException ignored) {
+                // Not a POSIX file system; the journal directory's own permissions apply.
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != KEY_BYTES) throw new IOException("Corrupt resume key: " + file);
+        key = new SecretKeySpec(bytes, ALGORITHM);
+    }
+
+    String token(long gameId, int slot) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update((gameId + ":" + slot).getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(Arrays.copyOf(mac.doFinal(), TOKEN_BYTES));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ALGORITHM + " is required by every JDK", ex);
+        }
+    }
+
+    // Compares in constant time, so a token cannot be found a character at a time.
+    static boolean matches(String expected, String token) {
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                token.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Broadcasts one game's message stream to any number of spectators.
+ * Every message is encoded once into a read-only direct buffer that all spectators share;
+ * each spectator only keeps its own position in it.
+ *
+ * The feed keeps a position snapshot taken every {@link #CHECKPOINT_INTERVAL} moves plus the moves
+ * played since, so a late joiner costs one snapshot and a short tail however long the game is.
+ * Moves and results are also relayed to the {@link HallFeed}, if there is one.
+ */
+class SpectatorFeed {
+    static final int CHECKPOINT_INTERVAL = 32;
+
+    private final FeedWriters writers;
+    private final HallFeed hall;
+    private final long gameId;
+    private final List<FeedSubscriber> subscribers = new ArrayList<>();
+    private ByteBuffer snapshot;
+    private long snapshotSeq;
+    private final List<ByteBuffer> tail = new ArrayList<>();
+    private ByteBuffer result;
+    private boolean closed;
+
+    // hall may be null.
+    SpectatorFeed(FeedWriters writers, HallFeed hall, long gameId) {
+        this.writers = writers;
+        this.hall = hall;
+        this.gameId = gameId;
+    }
+
+    long getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Encodes a move once and queues the same bytes for every spectator.
+     * Moves must be published in sequence order.
+     */
+    void publishMove(String message) {
+        synchronized (this) {
+            ByteBuffer encoded = encode(message);
+            tail.add(encoded);
+            broadcast(encoded);
+        }
+        // Relayed outside this feed's lock: the hall takes feed locks while holding its own.
+        if (hall != null) hall.relay(gameId, message);
+    }
+
+    // Publishes the final "GAMEOVER ..." message; it is also replayed to anyone joining later.
+    void publishResult(String message) {
+        synchronized (this) {
+            result = encode(message);
+            broadcast(result);
+        }
+        if (hall != null) hall.relay(gameId, message);
+    }
+
+    /**
+     * Replaces the stored snapshot with the position after move seq and drops the tail before it.
+     */
+    synchronized void checkpoint(long seq, String fen) {
+        snapshot = encode("SNAPSHOT " + seq + " " + fen);
+        snapshotSeq = seq;
+        tail.clear();
+    }
+
+    /**
+     * Returns the moves played after lastSeq, or null if they are older than the last snapshot.
+     */
+    synchronized List<String> movesSince(long lastSeq) {
+        if (lastSeq < snapshotSeq) return null;
+        List<String> moves = new ArrayList<>();
+        for (int i = (int) (lastSeq - snapshotSeq); i < tail.size(); i++) {
+            moves.add(decode(tail.get(i)));
+        }
+        return moves;
+    }
+
+    /**
+     * Returns what a late joiner is sent: the last snapshot, the moves since and the result, if any.
+     */
+    synchronized List<String> history() {
+        List<String> messages = new ArrayList<>();
+        if (snapshot != null) messages.add(decode(snapshot));
+        for (ByteBuffer message : tail) {
+            messages.add(decode(message));
+        }
+        if (result != null) messages.add(decode(result));
+        return messages;
+    }
+
+    /**
+     * Adds a spectator. Late joiners get the last snapshot, the moves played since and the result
+     * if the game is over, all in one gathering write, and then the live tail.
+     */
+    synchronized void subscribe(SocketChannel channel) throws IOException {
+        if (closed) {
+            FeedSubscriber.close(channel);
+            return;
+        }
+        FeedSubscriber subscriber = new FeedSubscriber(channel, writers, this::remove);
+        if (snapshot != null) subscriber.enqueue(snapshot);
+        for (ByteBuffer message : tail) {
+            subscriber.enqueue(message);
+        }
+        if (result != null) subscriber.enqueue(result);
+        subscribers.add(subscriber);
+    }
+
+    // Stops accepting spectators; current ones are disconnected once their queues drain.
+    void close() {
+        synchronized (this) {
+            closed = true;
+            ByteBuffer end = encode("END");
+            for (FeedSubscriber subscriber : new ArrayList<>(subscribers)) {
+                subscriber.finish(end);
+            }
+        }
+        if (hall != null) hall.unregister(gameId);
+    }
+
+    synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void broadcast(ByteBuffer encoded) {
+        for (FeedSubscriber subscriber : new ArrayList<>(subscribers)) {
+            subscriber.enqueue(encoded);
+        }
+    }
+
+    private synchronized void remove(FeedSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    static ByteBuffer encode(String message) {
+        byte[] bytes = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private static String decode(ByteBuffer message) {
+        return StandardCharsets.UTF_8.decode(message.duplicate()).toString().trim();
+    }
+}
@@ -0,0 +1,6 @@
+module com.example.projectchess.server {
+    requires com.example.projectchess.backend;
+    requires jdk.jfr;
+
+    exports com.example.projectchess.server;
+}
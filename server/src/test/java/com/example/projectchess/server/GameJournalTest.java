@@ -0,0 +1,97 @@
+package com.example.projectchess.server;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameJournalTest {
+    private static final int RECORDS = 10;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayReadsRecordsInOrderAndStopsAtTheUnwrittenTail() throws IOException {
+        writeRecords(RECORDS);
+        List<long[]> records = replay(0);
+        assertEquals(RECORDS, records.size());
+        for (int i = 0; i < RECORDS; i++) {
+            assertRecord(records.get(i), i);
+        }
+        assertEquals(RECORDS - 4, replay(4).size());
+        assertEquals(4, replay(4).get(0)[0]);
+    }
+
+    @Test
+    void replayStopsAtATornRecord() throws IOException {
+        writeRecords(RECORDS);
+        tear(6);
+        List<long[]> records = replay(0);
+        assertEquals(6, records.size());
+        for (int i = 0; i < 6; i++) {
+            assertRecord(records.get(i), i);
+        }
+    }
+
+    @Test
+    void appendingOverATearDoesNotReviveLaterRecords() throws IOException {
+        writeRecords(RECORDS);
+        tear(3);
+        try (GameJournal journal = new GameJournal(directory)) {
+            assertEquals(3, journal.append(99, 1, GameJournal.END_OF_GAME, 5000));
+        }
+        List<long[]> records = replay(0);
+        assertEquals(4, records.size());
+        assertEquals(99, records.get(3)[1]);
+        assertEquals(GameJournal.END_OF_GAME, records.get(3)[3]);
+    }
+
+    @Test
+    void movesAndSlotsSurviveEncoding() {
+        int move = GameJournal.withSlot(GameJournal.encodeMove(6, 4, 4, 4), 1);
+        assertEquals(1, GameJournal.slotOf(move));
+        assertArrayEquals(new int[]{6, 4, 4, 4}, GameJournal.decodeMove(move));
+        assertEquals(0, GameJournal.slotOf(GameJournal.encodeMove(7, 7, 0, 0)));
+    }
+
+    // Record i belongs to game i % 3 at seq i / 3 + 1.
+    private void writeRecords(int count) throws IOException {
+        try (GameJournal journal = new GameJournal(directory)) {
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, journal.append(i % 3, i / 3 + 1, GameJournal.encodeMove(i % 8, 0, 7 - i % 8, 1), 1000 + i));
+            }
+        }
+    }
+
+    private static void assertRecord(long[] record, int i) {
+        assertEquals(i, record[0]);
+        assertEquals(i % 3, record[1]);
+        assertEquals(i / 3 + 1, record[2]);
+        assertEquals(GameJournal.encodeMove(i % 8, 0, 7 - i % 8, 1), record[3]);
+        assertEquals(1000 + i, record[4]);
+    }
+
+    // Overwrites the second half of a record, as a crash part way through writing it would.
+    private void tear(int record) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory.resolve("journal-00000000.seg"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[GameJournal.RECORD_SIZE / 2]),
+                    (long) record * GameJournal.RECORD_SIZE + GameJournal.RECORD_SIZE / 2);
+        }
+    }
+
+    private List<long[]> replay(long from) throws IOException {
+        List<long[]> records = new ArrayList<>();
+        GameJournal.replay(directory, from, (position, gameId, seq, move, timestamp) ->
+                records.add(new long[]{position, gameId, seq, move, timestamp}));
+        return records;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.projectchess.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameSessionTest {
+    @TempDir
+    Path directory;
+
+    // A segment that fills up, from another game's moves, while a game's first move is being journaled.
+    @Test
+    void segmentRolledDuringTheFirstMoveKeepsTheGameRecoverable() throws IOException {
+        GameSession[] session = new GameSession[1];
+        GameJournal journal = new GameJournal(directory) {
+            @Override
+            public synchronized long append(long gameId, long seq, int move, long timestamp) throws IOException {
+                long position = super.append(gameId, seq, move, timestamp);
+                if (gameId == 1 && seq == 1) {
+                    // Another game's records, up to and including the first one of the next segment.
+                    super.append(2, 1, END_OF_GAME, timestamp);
+                    while (nextPosition() <= SEGMENT_RECORDS) super.append(2, 2, END_OF_GAME, timestamp);
+                }
+                return position;
+            }
+        };
+        journal.setRetention(new GameJournal.Retention() {
+            @Override
+            public long oldestInProgress(long next) {
+                return Math.min(next, session[0].getJournalStart());
+            }
+
+            @Override
+            public long nextGameId() {
+                return 3;
+            }
+        });
+        FeedWriters writers = new FeedWriters(1);
+        session[0] = new GameSession(1, new SpectatorFeed(writers, new HallFeed(writers), 1), journal,
+                new ResumeTokens(directory), () -> { });
+        StringWriter white = new StringWriter(), black = new StringWriter();
+        session[0].attach(0, new PrintWriter(white, true));
+        session[0].attach(1, new PrintWriter(black, true));
+        session[0].accept(0, "MOVE 6,4 4,4");
+        session[0].accept(1, "MOVE 1,4 3,4");
+        journal.close();
+        assertTrue(Files.exists(directory.resolve("checkpoint")), "the segment rolled over");
+        assertTrue(Files.exists(directory.resolve("journal-00000000.seg")), "the game's first record is kept");
+        assertTrue(white.toString().contains("ACK 1") && black.toString().contains("ACK 2"));
+
+        ChessServer recovered = new ChessServer(directory);
+        assertEquals(1, recovered.getGameCount());
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.projectchess.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.ChessPiece;
+import com.example.projectchess.backend.Color;
+
+/**
+ * Measures journal append throughput and server recovery time on a million journaled moves.
+ * Run from server/ after mvn package, with:
+ *   java -cp "target/test-classes:target/classes:target/modules/*" com.example.projectchess.server.JournalBenchmark [moves] [directory]
+ */
+public class JournalBenchmark {
+    public static void main(String[] args) throws IOException {
+        int totalMoves = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = args.length > 1 ? Path.of(args[1]) : Files.createTempDirectory("journal-bench");
+        deleteJournal(directory);
+
+        // Recovery replays moves through ChessBoard, so the journal has to contain real games.
+        List<int[]> templates = randomGames(200, new Random(42));
+
+        int games = 0, written = 0;
+        long start = System.nanoTime();
+        try (GameJournal journal = new GameJournal(directory)) {
+            while (written < totalMoves) {
+                long gameId = ++games;
+                int[] moves = templates.get(games % templates.size());
+                for (int i = 0; i < moves.length && written < totalMoves; i++, written++) {
+                    journal.append(gameId, i + 1, moves[i], System.currentTimeMillis());
+                }
+                // Leave roughly one game in ten unfinished so recovery has in-progress games to rebuild.
+                if (games % 10 != 0) {
+                    journal.append(gameId, moves.length + 1, GameJournal.END_OF_GAME, System.currentTimeMillis());
+                }
+            }
+        }
+        long appendNanos = System.nanoTime() - start;
+        System.out.printf("Appended %,d moves (%,d games) in %d ms: %,.0f moves/s%n",
+                written, games, appendNanos / 1_000_000, written / (appendNanos / 1e9));
+
+        long[] records = new long[1];
+        start = System.nanoTime();
+        GameJournal.replay(directory, (position, gameId, seq, move, timestamp) -> records[0]++);
+        long scanNanos = System.nanoTime() - start;
+        System.out.printf("Scanned %,d records in %d ms%n", records[0], scanNanos / 1_000_000);
+
+        start = System.nanoTime();
+        ChessServer server = new ChessServer(directory);
+        long recoverNanos = System.nanoTime() - start;
+        System.out.printf("Recovered %,d in-progress games in %d ms%n",
+                server.getGameCount(), recoverNanos / 1_000_000);
+        System.exit(0);
+    }
+
+    // Plays random legal games and returns each one as journal-encoded moves.
+    private static List<int[]> randomGames(int count, Random random) {
+        List<int[]> games = new ArrayList<>();
+        for (int g = 0; g < count; g++) {
+            ChessBoard board = new ChessBoard();
+            Color turn = Color.WHITE;
+            List<Integer> moves = new ArrayList<>();
+            while (moves.size() < 200) {
+                List<int[]> legal = new ArrayList<>();
+                for (int row = 0; row < 8; row++) {
+                    for (int col = 0; col < 8; col++) {
+                        ChessPiece piece = board.getPiece(row, col);
+                        if (piece == null || piece.getColor() != turn) continue;
+                        for (int[] to : board.getLegalMoves(row, col)) {
+                            legal.add(new int[]{row, col, to[0], to[1]});
+                        }
+                    }
+                }
+                if (legal.isEmpty()) break;
+                int[] move = legal.get(random.nextInt(legal.size()));
+                board.movePiece(move[0], move[1], move[2], move[3], turn);
+                moves.add(GameJournal.encodeMove(move[0], move[1], move[2], move[3]));
+                turn = (turn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+            }
+            games.add(moves.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return games;
+    }
+
+    private static void deleteJournal(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(p -> p.getFileName().toString().endsWith(".seg"))
+                    .sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
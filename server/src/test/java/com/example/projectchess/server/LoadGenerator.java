@@ -0,0 +1,432 @@
+package com.example.projectchess.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.ChessPiece;
+import com.example.projectchess.backend.Color;
+import com.example.projectchess.backend.Engine;
+import com.example.projectchess.backend.Position;
+import com.example.projectchess.backend.San;
+
+/**
+ * Stress test for ChessServer: simulated players speaking the same protocol as ChessClient,
+ * each on its own connection and virtual thread, playing random legal moves (or engine moves)
+ * from their own ChessBoard after a think time. Bots pair up through the server's lobby like
+ * real players; when a game ends they queue for another one.
+ *
+ * Every few seconds it reports games in progress, move throughput, the round trip from sending a
+ * move to its ACK, the relay time from sending a move to the opponent receiving it, error counts,
+ * and the server's CPU, memory and threads. With --spawn-server the server is started as a child
+ * JVM on localhost so its usage is measured apart from the bots'; --server-pid watches a server
+ * that is already running (CPU only, plus memory and threads from /proc on Linux).
+ *
+ * Run from server/ after mvn package, with:
+ *   java -cp "target/test-classes:target/classes:target/modules/*" com.example.projectchess.server.LoadGenerator
+ *        [--port p] [--bots n] [--duration s] [--think ms] [--engine ms] [--ramp s] [--max-plies n]
+ *        [--spawn-server | --server-pid pid]
+ * Thousands of bots need as many file descriptors on both sides (ulimit -n).
+ */
+public class LoadGenerator {
+    private static final String HOST = "localhost";
+    private static final long REPORT_INTERVAL_MS = 5000;
+
+    private final int port;
+    private final long thinkMillis;
+    private final long engineMillis;
+    private final int maxPlies;
+    private volatile boolean stopping;
+
+    // Games whose first bot has joined, waiting for the second; the first bot plays White.
+    private final Map<Long, Match> matches = new ConcurrentHashMap<>();
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    // Engine searches run on platform threads, one per core, each with its own engine: a search
+    // never blocks, so on a virtual thread it would hold a carrier and stall other bots' sockets.
+    private final ExecutorService searchThreads;
+    private final ThreadLocal<Engine> engines = ThreadLocal.withInitial(() -> new Engine(null, null));
+
+    private final AtomicInteger gamesInProgress = new AtomicInteger();
+    private final LongAdder gamesFinished = new LongAdder();
+    private final LongAdder movesAcked = new LongAdder();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder rejectedMoves = new LongAdder();
+    private final LongAdder protocolErrors = new LongAdder();
+    private final LongAdder disconnects = new LongAdder();
+    private final Latencies roundTrips = new Latencies();
+    private final Latencies relays = new Latencies();
+
+    LoadGenerator(int port, long thinkMillis, long engineMillis, int maxPlies) {
+        this.port = port;
+        this.thinkMillis = thinkMillis;
+        this.engineMillis = engineMillis;
+        this.maxPlies = maxPlies;
+        searchThreads = engineMillis > 0
+                ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+                    Thread thread = new Thread(r, "load-search");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 5000, bots = 1000, maxPlies = 200;
+        long durationSeconds = 60, thinkMillis = 500, engineMillis = 0, rampSeconds = 5, serverPid = -1;
+        boolean spawnServer = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--bots" -> bots = Integer.parseInt(args[++i]);
+                case "--duration" -> durationSeconds = Long.parseLong(args[++i]);
+                case "--think" -> thinkMillis = Long.parseLong(args[++i]);
+                case "--engine" -> engineMillis = Long.parseLong(args[++i]);
+                case "--ramp" -> rampSeconds = Long.parseLong(args[++i]);
+                case "--max-plies" -> maxPlies = Integer.parseInt(args[++i]);
+                case "--spawn-server" -> spawnServer = true;
+                case "--server-pid" -> serverPid = Long.parseLong(args[++i]);
+                default -> {
+                    System.out.println("Usage: LoadGenerator [--port p] [--bots n] [--duration s] [--think ms]"
+                            + " [--engine ms] [--ramp s] [--max-plies n] [--spawn-server | --server-pid pid]");
+                    return;
+                }
+            }
+        }
+
+        Process child = spawnServer ? spawnServer(port) : null;
+        ProcessHandle server = child != null ? child.toHandle()
+                : serverPid > 0 ? ProcessHandle.of(serverPid).orElse(null) : null;
+        try {
+            new LoadGenerator(port, thinkMillis, engineMillis, maxPlies)
+                    .run(bots, durationSeconds * 1000, rampSeconds * 1000, server);
+        } finally {
+            if (child != null) child.destroy();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Starts bots evenly over the ramp time, reports until the duration is up, then disconnects them.
+     */
+    void run(int bots, long durationMillis, long rampMillis, ProcessHandle server) throws InterruptedException {
+        System.out.printf("%d bots against %s:%d for %d s, think %d ms, %s moves%n", bots, HOST, port,
+                durationMillis / 1000, thinkMillis, engineMillis > 0 ? engineMillis + " ms engine" : "random");
+        ServerUsage usage = server != null ? new ServerUsage(server) : null;
+        ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+        long end = start + durationMillis * 1_000_000;
+        long nextReport = start + REPORT_INTERVAL_MS * 1_000_000;
+        int started = 0;
+        while (System.nanoTime() < end) {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            int due = rampMillis <= 0 ? bots : (int) Math.min(bots, bots * elapsedMillis / rampMillis);
+            for (; started < due; started++) {
+                threads.execute(this::playGames);
+            }
+            if (System.nanoTime() >= nextReport) {
+                report((System.nanoTime() - start) / 1_000_000_000, usage);
+                nextReport += REPORT_INTERVAL_MS * 1_000_000;
+            }
+            Thread.sleep(10);
+        }
+        stopping = true;
+        for (Socket socket : sockets) {
+            close(socket);
+        }
+        threads.shutdownNow();
+        if (searchThreads != null) searchThreads.shutdownNow();
+        summary((System.nanoTime() - start) / 1e9);
+    }
+
+    // One bot: plays games back to back until the run stops.
+    private void playGames() {
+        while (!stopping) {
+            try (Socket socket = new Socket(HOST, port)) {
+                sockets.add(socket);
+                socket.setTcpNoDelay(true);
+                playGame(socket);
+            } catch (IOException ex) {
+                if (stopping) return;
+                connectErrors.increment();
+                pause(1000);
+            } finally {
+                sockets.removeIf(Socket::isClosed);
+            }
+        }
+    }
+
+    private void playGame(Socket socket) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        out.println("PLAY");
+        ChessBoard board = new ChessBoard();
+        Match match = null;
+        Color myColor = null;
+        long sentAt = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(" ");
+                switch (parts[0]) {
+                    case "GAME" -> {
+                        long gameId = Long.parseLong(parts[1]);
+                        match = matches.computeIfAbsent(gameId, id -> new Match());
+                        myColor = match.join();
+                        if (myColor == Color.BLACK) matches.remove(gameId);
+                        gamesInProgress.incrementAndGet();
+                    }
+                    case "ACK" -> {
+                        roundTrips.record(System.nanoTime() - sentAt);
+                        movesAcked.increment();
+                        continue;
+                    }
+                    case "MOVE" -> {
+                        if (match != null) relays.record(System.nanoTime() - match.sentAt);
+                        String[] src = parts[1].split(","), dst = parts[2].split(",");
+                        if (!board.movePiece(Integer.parseInt(src[0]), Integer.parseInt(src[1]),
+                                Integer.parseInt(dst[0]), Integer.parseInt(dst[1]), board.getSideToMove())) {
+                            protocolErrors.increment();
+                            return;
+                        }
+                    }
+                    case "SNAPSHOT" -> {
+                        // Our move was rejected: continue from the server's position.
+                        rejectedMoves.increment();
+                        board.loadFen(line.split(" ", 3)[2]);
+                    }
+                    case "GAMEOVER" -> {
+                        gamesFinished.increment();
+                        return;
+                    }
+                    default -> {
+                        protocolErrors.increment();
+                        return;
+                    }
+                }
+                if (myColor == null || board.getSideToMove() != myColor) continue;
+                // The opponent's move ended the game: the server's GAMEOVER follows.
+                if (!board.hasLegalMoves(myColor)) continue;
+                if ((board.snapshot().getFullmoveNumber() - 1) * 2 >= maxPlies) {
+                    out.println("GAMEOVER RESIGN");
+                    continue;
+                }
+
+                pause(thinkMillis / 2 + ThreadLocalRandom.current().nextLong(thinkMillis + 1));
+                int[] move = chooseMove(board);
+                board.movePiece(move[0], move[1], move[2], move[3], myColor);
+                sentAt = System.nanoTime();
+                match.sentAt = sentAt;
+                out.println("MOVE " + move[0] + "," + move[1] + " " + move[2] + "," + move[3]);
+            }
+            if (!stopping) disconnects.increment();
+        } catch (RuntimeException ex) {
+            protocolErrors.increment();
+        } finally {
+            if (myColor != null) gamesInProgress.decrementAndGet();
+        }
+    }
+
+    private int[] chooseMove(ChessBoard board) {
+        if (engineMillis > 0) {
+            Position position = board.snapshot();
+            try {
+                Engine.Info info = searchThreads.submit(() -> engines.get().think(position, engineMillis)).get();
+                int[] move = info == null ? null : San.parse(board, info.getPv().get(0));
+                if (move != null) return move;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                protocolErrors.increment();
+            }
+        }
+        List<int[]> moves = new ArrayList<>();
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                ChessPiece piece = board.getPiece(row, col);
+                if (piece == null || piece.getColor() != board.getSideToMove()) continue;
+                for (int[] target : board.getLegalMoves(row, col)) {
+                    moves.add(new int[]{row, col, target[0], target[1]});
+                }
+            }
+        }
+        return moves.isEmpty() ? null : moves.get(ThreadLocalRandom.current().nextInt(moves.size()));
+    }
+
+    private void report(long seconds, ServerUsage usage) {
+        long[] roundTrip = roundTrips.drain(), relay = relays.drain();
+        System.out.printf("%4ds games %d (%d done) | %,.0f moves/s | ack ms %s | relay ms %s | errors %s%s%n",
+                seconds, gamesInProgress.get(), gamesFinished.sum(), roundTrip.length * 1000.0 / REPORT_INTERVAL_MS,
+                percentiles(roundTrip), percentiles(relay), errors(),
+                usage != null ? " | server " + usage.sample() : "");
+    }
+
+    private void summary(double seconds) {
+        long[] roundTrip = roundTrips.all(), relay = relays.all();
+        System.out.printf("Done: %,d moves in %.0f s (%,.0f moves/s), %,d games finished%n",
+                movesAcked.sum(), seconds, movesAcked.sum() / seconds, gamesFinished.sum());
+        System.out.println("  ack round trip ms p50/p90/p99/p99.9/max: " + percentiles(roundTrip));
+        System.out.println("  relay to opponent ms p50/p90/p99/p99.9/max: " + percentiles(relay));
+        System.out.println("  errors: " + errors());
+    }
+
+    private String errors() {
+        return "connect " + connectErrors.sum() + ", rejected " + rejectedMoves.sum()
+                + ", protocol " + protocolErrors.sum() + ", dropped " + disconnects.sum();
+    }
+
+    private static String percentiles(long[] nanos) {
+        if (nanos.length == 0) return "-";
+        Arrays.sort(nanos);
+        double[] points = {0.5, 0.9, 0.99, 0.999};
+        StringBuilder text = new StringBuilder();
+        for (double point : points) {
+            int index = (int) Math.min(nanos.length - 1, Math.ceil(point * nanos.length) - 1);
+            text.append(String.format("%.2f/", nanos[Math.max(0, index)] / 1e6));
+        }
+        return text.append(String.format("%.2f", nanos[nanos.length - 1] / 1e6)).toString();
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Starts ChessServer in a child JVM with the same class or module path, on the given port
+     * and with a fresh journal; its output goes to server.log in the journal's directory.
+     */
+    private static Process spawnServer(int port) throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("load-server");
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Dchess.port=" + port);
+        command.add("-Dchess.journal=" + directory.resolve("journal"));
+        Module module = ChessServer.class.getModule();
+        if (module.isNamed()) {
+            String modulePath = System.getProperty("jdk.module.path");
+            if (modulePath != null) command.addAll(List.of("--module-path", modulePath));
+            command.addAll(List.of("-m", module.getName() + "/" + ChessServer.class.getName()));
+        } else {
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), ChessServer.class.getName()));
+        }
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(directory.resolve("server.log").toFile())
+                .start();
+        System.out.println("Started server, pid " + process.pid() + ", log " + directory.resolve("server.log"));
+        // Wait until it accepts connections.
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try (Socket probe = new Socket(HOST, port)) {
+                return process;
+            } catch (IOException ex) {
+                if (!process.isAlive()) throw new IOException("Server exited with " + process.exitValue());
+                Thread.sleep(100);
+            }
+        }
+        process.destroy();
+        throw new IOException("Server did not start listening on port " + port);
+    }
+
+    /**
+     * The two sides of one game as seen by the bots. The first bot to join plays White.
+     */
+    private static final class Match {
+        private final AtomicInteger joined = new AtomicInteger();
+        // When the last move was sent, for the opponent's relay time.
+        volatile long sentAt;
+
+        Color join() {
+            return joined.getAndIncrement() == 0 ? Color.WHITE : Color.BLACK;
+        }
+    }
+
+    /**
+     * Collects latency samples in nanoseconds; drain() hands over those since the last call.
+     */
+    private static final class Latencies {
+        private long[] samples = new long[1024];
+        private int size;
+        private final List<long[]> drained = new ArrayList<>();
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+            samples[size++] = nanos;
+        }
+
+        synchronized long[] drain() {
+            long[] batch = Arrays.copyOf(samples, size);
+            size = 0;
+            drained.add(batch);
+            return batch.clone();
+        }
+
+        synchronized long[] all() {
+            drain();
+            return drained.stream().flatMapToLong(Arrays::stream).toArray();
+        }
+    }
+
+    /**
+     * CPU, memory and threads of the server process between samples. Memory and threads come
+     * from /proc and are left out where it does not exist.
+     */
+    private static final class ServerUsage {
+        private final ProcessHandle process;
+        private long lastCpuNanos;
+        private long lastSampleNanos = System.nanoTime();
+
+        ServerUsage(ProcessHandle process) {
+            this.process = process;
+            lastCpuNanos = cpuNanos();
+        }
+
+        String sample() {
+            long now = System.nanoTime(), cpu = cpuNanos();
+            double load = 100.0 * (cpu - lastCpuNanos) / Math.max(1, now - lastSampleNanos);
+            lastCpuNanos = cpu;
+            lastSampleNanos = now;
+            String text = String.format("cpu %.0f%%", load);
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(process.pid()), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        text += ", rss " + Long.parseLong(line.replaceAll("\\D", "")) / 1024 + " MB";
+                    } else if (line.startsWith("Threads:")) {
+                        text += ", threads " + line.substring(8).trim();
+                    }
+                }
+            } catch (IOException | RuntimeException ignored) {
+            }
+            return process.isAlive() ? text : "exited";
+        }
+
+        private long cpuNanos() {
+            return process.info().totalCpuDuration().map(java.time.Duration::toNanos).orElse(0L);
+        }
+    }
+}
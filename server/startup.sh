@@ -0,0 +1,62 @@
+#!/bin/bash
+# Measures cold start of the server: the time from launching the JVM until the port accepts
+# connections, and the resident memory at that point, as the median of several runs each with
+# a fresh journal. Compares, as far as they have been built:
+#   before      the server modules plus JavaFX resolved at startup, as in the single-module build
+#               (set JAVAFX to the module path of the JavaFX jars to include it)
+#   modules     the server and backend jars on the module path of the full JDK
+#   image       the jlink image from image.sh, with its JDK class archive only
+#   image+cds   bin/chess-server: the image with the server's class archive as well
+#
+# Run with: ./startup.sh [runs]   after mvn package and, for the image rows, image.sh.
+set -e
+cd "$(dirname "$0")"
+RUNS=${1:-10}
+PORT=${PORT:-5098}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+MODULES="target/modules:$(ls target/chess-server-*.jar)"
+MAIN=com.example.projectchess.server/com.example.projectchess.server.ChessServer
+
+# Prints "milliseconds rss-kB" for one start of the given command.
+start_once() {
+    local journal start pid ready rss
+    journal=$(mktemp -d)
+    start=$(date +%s%N)
+    # The java launcher reads JDK_JAVA_OPTIONS, also when bin/chess-server runs it.
+    JDK_JAVA_OPTIONS="-Dchess.port=$PORT -Dchess.journal=$journal" "$@" > /dev/null 2>&1 &
+    pid=$!
+    until (echo > /dev/tcp/localhost/$PORT) 2>/dev/null; do
+        kill -0 $pid 2>/dev/null || { echo "server exited" >&2; exit 1; }
+        sleep 0.005
+    done
+    ready=$(date +%s%N)
+    # bin/chess-server execs the JVM, so the pid is the JVM's in every case.
+    rss=$(awk '/VmRSS/ { print $2 }' /proc/$pid/status)
+    kill $pid
+    wait $pid 2>/dev/null || true
+    rm -rf "$journal"
+    echo $(( (ready - start) / 1000000 )) "$rss"
+}
+
+measure() {
+    local name=$1 times=() sizes=() result
+    shift
+    for ((i = 0; i < RUNS; i++)); do
+        result=($(start_once "$@"))
+        times+=(${result[0]})
+        sizes+=(${result[1]})
+    done
+    local time=$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")
+    local size=$(printf '%s\n' "${sizes[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")
+    printf '%-10s %6d ms %6d MB\n' "$name" "$time" $(( size / 1024 ))
+}
+
+echo "Median of $RUNS starts, until the port accepts connections:"
+if [ -n "$JAVAFX" ]; then
+    measure before "$JAVA" -p "$MODULES:$JAVAFX" --add-modules javafx.controls,javafx.fxml -m $MAIN
+fi
+measure modules "$JAVA" -p "$MODULES" -m $MAIN
+if [ -x target/image/bin/chess-server ]; then
+    measure image target/image/bin/java -m $MAIN
+    measure image+cds target/image/bin/chess-server
+fi
@@ -0,0 +1,170 @@
+package com.example.projectchess;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.util.Duration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import com.example.projectchess.backend.Engine;
+import com.example.projectchess.backend.OpeningBook;
+import com.example.projectchess.backend.Position;
+import com.example.projectchess.backend.Tablebase;
+
+/**
+ * Engine analysis of a position: an evaluation bar, the book moves if the position is in the
+ * opening book, and a line with depth, score, principal variation and speed.
+ *
+ * The search runs on its own thread and only stores its latest report; a timeline shows it a few
+ * times a second, so however fast the engine reports, the application thread does a bounded
+ * amount of work and never waits for the search. The opening book is the file named by the
+ * "chess.book" system property (default "book.bin"), if it exists.
+ */
+class AnalysisPanel {
+    private static final Duration REFRESH_INTERVAL = Duration.millis(250);
+    private static final double BAR_WIDTH = 18;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "analysis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Latest reports of the current search, taken by the next refresh.
+    private final AtomicReference<Engine.Info> latestLine = new AtomicReference<>();
+    private final AtomicReference<Engine.Info> latestBook = new AtomicReference<>();
+    // Reports from a cancelled search that arrive after a new one started are dropped by this.
+    private volatile long generation;
+    private Future<?> search;
+    private Engine engine; // created and used on the analysis thread only
+
+    private final Timeline refresh;
+    private final Pane bar;
+    private final Rectangle whitePart;
+    private double whiteFraction = 0.5;
+    private final Label bookLabel;
+    private final Label lineLabel;
+    private final VBox lines;
+
+    AnalysisPanel() {
+        bar = new Pane();
+        bar.setPrefWidth(BAR_WIDTH);
+        bar.setMinWidth(BAR_WIDTH);
+        bar.setStyle("-fx-background-color: #333333;");
+        whitePart = new Rectangle(BAR_WIDTH, 0, Color.WHITE);
+        bar.getChildren().add(whitePart);
+        bar.heightProperty().addListener((obs, old, height) -> layoutBar());
+        bar.setVisible(false);
+
+        bookLabel = new Label();
+        bookLabel.setFont(new Font("SansSerif", 14));
+        lineLabel = new Label();
+        lineLabel.setFont(new Font("SansSerif", 14));
+        lines = new VBox(2, bookLabel, lineLabel);
+        lines.setPadding(new Insets(0, 10, 0, 10));
+
+        refresh = new Timeline(new KeyFrame(REFRESH_INTERVAL, e -> refresh()));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    Node getBar() {
+        return bar;
+    }
+
+    Node getLines() {
+        return lines;
+    }
+
+    /**
+     * Starts analysing a position, cancelling any search already running.
+     */
+    void analyze(Position position) {
+        cancel();
+        long id = generation;
+        search = executor.submit(() -> {
+            try {
+                if (engine == null) engine = new Engine(openBook(), Tablebase.getDefault());
+                engine.analyze(position, info -> {
+                    if (generation == id) (info.isBook() ? latestBook : latestLine).set(info);
+                });
+            } catch (RuntimeException ex) {
+                ex.printStackTrace();
+            }
+        });
+        bookLabel.setText("");
+        lineLabel.setText("Analysing...");
+        bar.setVisible(true);
+        refresh.play();
+    }
+
+    void stop() {
+        cancel();
+        refresh.stop();
+        bookLabel.setText("");
+        lineLabel.setText("");
+        bar.setVisible(false);
+    }
+
+    void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    // Interrupts the running search without waiting for it; the next one queues behind it.
+    private void cancel() {
+        generation++;
+        if (search != null) search.cancel(true);
+        search = null;
+        latestLine.set(null);
+        latestBook.set(null);
+    }
+
+    private void refresh() {
+        Engine.Info book = latestBook.getAndSet(null);
+        if (book != null) bookLabel.setText("Book: " + String.join(" ", book.getPv()));
+        Engine.Info info = latestLine.getAndSet(null);
+        if (info == null) return;
+        lineLabel.setText("Depth " + info.getDepth() + "   " + info.getScoreText() + "   "
+                + String.join(" ", info.getPv()) + "   " + formatSpeed(info.getNodesPerSecond()));
+        if (info.isMate()) {
+            whiteFraction = info.getScore() > 0 ? 1 : 0;
+        } else {
+            // A logistic curve: +4.00 fills about 73% of the bar.
+            whiteFraction = 1 / (1 + Math.exp(-info.getScore() / 400.0));
+        }
+        layoutBar();
+    }
+
+    private void layoutBar() {
+        double height = bar.getHeight() * whiteFraction;
+        whitePart.setHeight(height);
+        whitePart.setY(bar.getHeight() - height);
+    }
+
+    private static String formatSpeed(long nodesPerSecond) {
+        if (nodesPerSecond >= 1_000_000) return String.format("%.1f Mn/s", nodesPerSecond / 1e6);
+        return String.format("%.0f kn/s", nodesPerSecond / 1e3);
+    }
+
+    private static OpeningBook openBook() {
+        Path file = Path.of(System.getProperty("chess.book", "book.bin"));
+        if (!Files.exists(file)) return null;
+        try {
+            return OpeningBook.open(file);
+        } catch (IOException ex) {
+            System.err.println("Cannot open opening book " + file + ": " + ex.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.projectchess;
+
+import javafx.scene.Node;
+import com.example.projectchess.backend.ChessBoard;
+
+/**
+ * Draws a {@link ChessBoard} and reports clicks and drags on its squares. Squares are given as
+ * bitmasks with bit row * 8 + col, the same as {@link ChessBoard#drainDirtySquares()}.
+ *
+ * The renderer is picked with -Dchess.renderer: "buttons" (the default, one styled Button per
+ * square) or "canvas" (a single Canvas).
+ */
+interface BoardView {
+    double SQUARE_SIZE = 80;
+    String LIGHT_SQUARE = "#f0d9b5";
+    String DARK_SQUARE = "#b58863";
+    String SELECTED = "#2f2ffb";
+    String LEGAL_MOVE = "#68e368";
+
+    static BoardView create() {
+        return "canvas".equalsIgnoreCase(System.getProperty("chess.renderer", "buttons"))
+                ? new CanvasBoardView() : new ButtonBoardView();
+    }
+
+    Node getNode();
+
+    void setListener(Listener listener);
+
+    /**
+     * Redraws the given squares from the board, which becomes the board later calls draw from.
+     */
+    void redraw(ChessBoard board, long squares);
+
+    /**
+     * Highlights a selected square and the squares it can move to, replacing any earlier selection.
+     */
+    void showSelection(int row, int col, long targets);
+
+    void clearSelection();
+
+    /**
+     * Slides the piece now on (eRow, eCol) over from (sRow, sCol). Renderers without animation
+     * just redraw both squares.
+     */
+    void animateMove(int sRow, int sCol, int eRow, int eCol);
+
+    void setDisabled(boolean disabled);
+
+    interface Listener {
+        void squareClicked(int row, int col);
+
+        // A piece was dragged from one square and released on another.
+        void pieceDropped(int sRow, int sCol, int eRow, int eCol);
+    }
+}
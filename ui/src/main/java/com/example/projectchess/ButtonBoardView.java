@@ -0,0 +1,120 @@
+package com.example.projectchess;
+
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.GridPane;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.ChessPiece;
+
+/**
+ * The original board: a GridPane of 64 Buttons, styled with CSS. Supports clicks only.
+ */
+class ButtonBoardView implements BoardView {
+    private static final String LIGHT_STYLE = "-fx-background-color: " + LIGHT_SQUARE + ";";
+    private static final String DARK_STYLE = "-fx-background-color: " + DARK_SQUARE + ";";
+    private static final String SELECTED_STYLE = " -fx-border-color: " + SELECTED + "; -fx-border-width: 3px;";
+    private static final String LEGAL_MOVE_STYLE = " -fx-border-color: " + LEGAL_MOVE + "; -fx-border-width: 3px;";
+
+    private final GridPane grid = new GridPane();
+    private final Button[][] squares = new Button[8][8];
+    // One piece view per square, reused; only its image changes.
+    private final ImageView[][] pieceViews = new ImageView[8][8];
+    private ChessBoard board;
+    private Listener listener;
+    // Squares currently showing a highlight.
+    private long highlighted;
+
+    ButtonBoardView() {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                Button square = new Button();
+                square.setPrefSize(SQUARE_SIZE, SQUARE_SIZE);
+                square.setStyle(baseStyle(row, col));
+                ImageView view = new ImageView();
+                view.setFitWidth(PieceImages.SIZE);
+                view.setFitHeight(PieceImages.SIZE);
+                view.setPreserveRatio(true);
+                pieceViews[row][col] = view;
+                final int r = row, c = col;
+                square.setOnAction(e -> {
+                    if (listener != null) listener.squareClicked(r, c);
+                });
+                squares[row][col] = square;
+                grid.add(square, col, row);
+            }
+        }
+    }
+
+    @Override
+    public Node getNode() {
+        return grid;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void redraw(ChessBoard board, long mask) {
+        this.board = board;
+        while (mask != 0) {
+            int square = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+            updateSquare(square / 8, square % 8);
+        }
+    }
+
+    @Override
+    public void showSelection(int row, int col, long targets) {
+        clearSelection();
+        squares[row][col].setStyle(baseStyle(row, col) + SELECTED_STYLE);
+        for (long mask = targets; mask != 0; mask &= mask - 1) {
+            int square = Long.numberOfTrailingZeros(mask);
+            squares[square / 8][square % 8].setStyle(baseStyle(square / 8, square % 8) + LEGAL_MOVE_STYLE);
+        }
+        highlighted = targets | 1L << (row * 8 + col);
+    }
+
+    @Override
+    public void clearSelection() {
+        for (long mask = highlighted; mask != 0; mask &= mask - 1) {
+            int square = Long.numberOfTrailingZeros(mask);
+            squares[square / 8][square % 8].setStyle(baseStyle(square / 8, square % 8));
+        }
+        highlighted = 0;
+    }
+
+    @Override
+    public void animateMove(int sRow, int sCol, int eRow, int eCol) {
+        redraw(board, 1L << (sRow * 8 + sCol) | 1L << (eRow * 8 + eCol));
+    }
+
+    @Override
+    public void setDisabled(boolean disabled) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                squares[row][col].setDisable(disabled);
+            }
+        }
+    }
+
+    // Updates the given square's piece image.
+    private void updateSquare(int row, int col) {
+        Button square = squares[row][col];
+        ChessPiece piece = board.getPiece(row, col);
+        if (piece != null) {
+            ImageView view = pieceViews[row][col];
+            view.setImage(PieceImages.get(piece));
+            square.setGraphic(view);
+        } else {
+            square.setGraphic(null);
+        }
+        // The style only changes with highlights, so a redraw leaves it alone.
+    }
+
+    private static String baseStyle(int row, int col) {
+        return (row + col) % 2 == 0 ? LIGHT_STYLE : DARK_STYLE;
+    }
+}
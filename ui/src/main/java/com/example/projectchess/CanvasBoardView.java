@@ -0,0 +1,213 @@
+package com.example.projectchess;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.ChessPiece;
+
+/**
+ * The board drawn on a single Canvas: one node instead of 64 Buttons with their skins, and no CSS.
+ * Clicks are hit-tested from the mouse position; a piece can also be dragged to its target square,
+ * and moves reported through {@link #animateMove} slide into place.
+ */
+class CanvasBoardView implements BoardView {
+    private static final double DRAG_THRESHOLD = 4;
+    private static final long ANIMATION_NANOS = 150_000_000L;
+    private static final double BORDER_WIDTH = 3;
+    private static final Color LIGHT = Color.web(LIGHT_SQUARE);
+    private static final Color DARK = Color.web(DARK_SQUARE);
+    private static final Color SELECTED_BORDER = Color.web(SELECTED);
+    private static final Color LEGAL_MOVE_BORDER = Color.web(LEGAL_MOVE);
+
+    private final double squareSize;
+    private final double pieceScale;
+    private final Canvas canvas;
+    private final GraphicsContext g;
+    private final AnimationTimer animator = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            animationFrame(now);
+        }
+    };
+    private ChessBoard board;
+    private Listener listener;
+    private int selected = -1; // square index, or -1
+    private long targets;
+
+    // Drag state: the square the mouse was pressed on, and where the dragged piece is drawn.
+    private int pressedSquare = -1;
+    private boolean dragging;
+    private double pressX, pressY, dragX, dragY;
+
+    // Animation state: the moving piece is hidden on its target square and drawn between the two.
+    private int animationFrom = -1, animationTo = -1;
+    private long animationStart;
+
+    CanvasBoardView() {
+        this(SQUARE_SIZE);
+    }
+
+    // A board of another size, e.g. the small tiles of the hall view; pieces are scaled to match.
+    CanvasBoardView(double squareSize) {
+        this.squareSize = squareSize;
+        this.pieceScale = squareSize / SQUARE_SIZE;
+        canvas = new Canvas(8 * squareSize, 8 * squareSize);
+        g = canvas.getGraphicsContext2D();
+        canvas.addEventHandler(MouseEvent.MOUSE_PRESSED, this::mousePressed);
+        canvas.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::mouseDragged);
+        canvas.addEventHandler(MouseEvent.MOUSE_RELEASED, this::mouseReleased);
+    }
+
+    @Override
+    public Node getNode() {
+        return canvas;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void redraw(ChessBoard board, long mask) {
+        this.board = board;
+        if (dragging || animationTo >= 0) {
+            // A floating piece may overlap any square.
+            paintAll();
+            return;
+        }
+        for (; mask != 0; mask &= mask - 1) {
+            paintSquare(Long.numberOfTrailingZeros(mask));
+        }
+    }
+
+    @Override
+    public void showSelection(int row, int col, long targets) {
+        long old = highlightMask();
+        selected = row * 8 + col;
+        this.targets = targets;
+        redraw(board, old | highlightMask());
+    }
+
+    @Override
+    public void clearSelection() {
+        long old = highlightMask();
+        selected = -1;
+        targets = 0;
+        redraw(board, old);
+    }
+
+    @Override
+    public void animateMove(int sRow, int sCol, int eRow, int eCol) {
+        animationFrom = sRow * 8 + sCol;
+        animationTo = eRow * 8 + eCol;
+        animationStart = -1;
+        animator.start();
+    }
+
+    @Override
+    public void setDisabled(boolean disabled) {
+        canvas.setDisable(disabled);
+        // Same fade as a disabled control.
+        canvas.setOpacity(disabled ? 0.4 : 1);
+    }
+
+    private long highlightMask() {
+        return selected < 0 ? targets : targets | 1L << selected;
+    }
+
+    private void animationFrame(long now) {
+        if (animationStart < 0) animationStart = now;
+        double t = Math.min(1, (double) (now - animationStart) / ANIMATION_NANOS);
+        paintAll();
+        if (t < 1 && board != null) {
+            ChessPiece piece = board.getPiece(animationTo / 8, animationTo % 8);
+            double x = (animationFrom % 8 + (animationTo % 8 - animationFrom % 8) * t) * squareSize;
+            double y = (animationFrom / 8 + (animationTo / 8 - animationFrom / 8) * t) * squareSize;
+            if (piece != null) drawPiece(piece, x + squareSize / 2, y + squareSize / 2);
+        } else {
+            animator.stop();
+            animationFrom = animationTo = -1;
+            paintAll();
+        }
+    }
+
+    private void mousePressed(MouseEvent e) {
+        pressedSquare = squareAt(e.getX(), e.getY());
+        pressX = e.getX();
+        pressY = e.getY();
+        dragging = false;
+    }
+
+    private void mouseDragged(MouseEvent e) {
+        if (pressedSquare < 0 || board == null) return;
+        ChessPiece piece = board.getPiece(pressedSquare / 8, pressedSquare % 8);
+        if (piece == null) return;
+        // Small movements during a click do not start a drag.
+        if (!dragging && Math.hypot(e.getX() - pressX, e.getY() - pressY) < DRAG_THRESHOLD) return;
+        dragging = true;
+        dragX = e.getX();
+        dragY = e.getY();
+        paintAll();
+    }
+
+    private void mouseReleased(MouseEvent e) {
+        int from = pressedSquare, to = squareAt(e.getX(), e.getY());
+        boolean dropped = dragging;
+        pressedSquare = -1;
+        dragging = false;
+        if (dropped) {
+            paintAll();
+            if (to >= 0 && to != from && listener != null) {
+                listener.pieceDropped(from / 8, from % 8, to / 8, to % 8);
+            }
+        } else if (to >= 0 && to == from && listener != null) {
+            listener.squareClicked(to / 8, to % 8);
+        }
+    }
+
+    // Square index under a point on the canvas, or -1 outside the board.
+    private int squareAt(double x, double y) {
+        int col = (int) Math.floor(x / squareSize), row = (int) Math.floor(y / squareSize);
+        return row < 0 || row > 7 || col < 0 || col > 7 ? -1 : row * 8 + col;
+    }
+
+    private void paintAll() {
+        for (int square = 0; square < 64; square++) {
+            paintSquare(square);
+        }
+        if (dragging) {
+            ChessPiece piece = board.getPiece(pressedSquare / 8, pressedSquare % 8);
+            if (piece != null) drawPiece(piece, dragX, dragY);
+        }
+    }
+
+    private void paintSquare(int square) {
+        int row = square / 8, col = square % 8;
+        double x = col * squareSize, y = row * squareSize;
+        g.setFill((row + col) % 2 == 0 ? LIGHT : DARK);
+        g.fillRect(x, y, squareSize, squareSize);
+        if (square == selected || (targets & 1L << square) != 0) {
+            g.setStroke(square == selected ? SELECTED_BORDER : LEGAL_MOVE_BORDER);
+            g.setLineWidth(BORDER_WIDTH);
+            g.strokeRect(x + BORDER_WIDTH / 2, y + BORDER_WIDTH / 2, squareSize - BORDER_WIDTH, squareSize - BORDER_WIDTH);
+        }
+        if (board == null) return;
+        // The dragged or moving piece is drawn separately, on top of everything.
+        if ((dragging && square == pressedSquare) || square == animationTo) return;
+        ChessPiece piece = board.getPiece(row, col);
+        if (piece != null) drawPiece(piece, x + squareSize / 2, y + squareSize / 2);
+    }
+
+    // Draws a piece centered on a point.
+    private void drawPiece(ChessPiece piece, double centerX, double centerY) {
+        Image image = PieceImages.get(piece);
+        double width = image.getWidth() * pieceScale, height = image.getHeight() * pieceScale;
+        g.drawImage(image, centerX - width / 2, centerY - height / 2, width, height);
+    }
+}
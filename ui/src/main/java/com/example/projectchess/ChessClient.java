@@ -0,0 +1,104 @@
+package com.example.projectchess;
+
+import java.io.*;
+import java.net.*;
+import javafx.application.Platform;
+
+public class ChessClient {
+    // Delay between reconnect attempts, doubled after each failure up to the maximum.
+    private static final long INITIAL_RETRY_MS = 500;
+    private static final long MAX_RETRY_MS = 8000;
+    private static final boolean DEBUG = Boolean.getBoolean("chess.debug");
+
+    private final String serverAddress;
+    private final int port;
+    private Socket socket;
+    private BufferedReader in;
+    private volatile PrintWriter out;
+    private GameBoard gameBoard; // Reference to UI for updating moves
+    // Messages read since the UI last ran are applied together.
+    private final FxBatcher<String> incoming;
+    private volatile long gameId = -1; // assigned by the server's "GAME id token" message
+    private volatile String resumeToken; // proves to the server that this client may resume the game
+
+    public ChessClient(String serverAddress, int port, GameBoard gameBoard) throws IOException {
+        this.serverAddress = serverAddress;
+        this.port = port;
+        this.gameBoard = gameBoard;
+        this.incoming = new FxBatcher<>(messages -> messages.forEach(gameBoard::processIncomingMove));
+        // Handshake: ask the server to pair us with an opponent.
+        connect("PLAY");
+        startListening();
+    }
+
+    // Sends a move message in the format: "MOVE sRow,sCol eRow,eCol"
+    public void sendMove(String move) {
+        out.println(move);
+    }
+
+    private void connect(String handshake) throws IOException {
+        socket = new Socket(serverAddress, port);
+        in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out = new PrintWriter(socket.getOutputStream(), true);
+        out.println(handshake);
+    }
+
+    // Listens for incoming messages and updates the UI accordingly.
+    private void startListening() {
+        Thread listener = new Thread(() -> {
+            while (true) {
+                try {
+                    String message;
+                    while ((message = in.readLine()) != null) {
+                        if (DEBUG) System.out.println("Received: " + message);
+                        if (message.startsWith("ERROR ")) {
+                            // The server refused to resume the game; retrying cannot change its answer.
+                            String error = message.substring("ERROR ".length());
+                            Platform.runLater(() -> gameBoard.showConnectionError(error));
+                            socket.close();
+                            return;
+                        }
+                        if (message.startsWith("GAME ")) {
+                            String[] parts = message.split(" ");
+                            gameId = Long.parseLong(parts[1]);
+                            resumeToken = parts[2];
+                        }
+                        incoming.add(message);
+                    }
+                } catch (IOException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    if (DEBUG) System.out.println("Connection lost: " + e.getMessage());
+                }
+                if (!reconnect()) return;
+            }
+        });
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Reconnects with backoff. Once paired, the client resumes its game by sending the last move
+     * seq it has applied; the server answers with the missing moves or a position snapshot, or
+     * with an ERROR if the game can no longer be resumed, which ends the connection for good.
+     */
+    private boolean reconnect() {
+        long delay = INITIAL_RETRY_MS;
+        Platform.runLater(() -> gameBoard.showConnectionStatus("Connection lost. Reconnecting..."));
+        while (true) {
+            try {
+                Thread.sleep(delay);
+                if (gameId == -1) {
+                    connect("PLAY");
+                } else {
+                    connect("RESUME " + gameId + " " + resumeToken + " " + gameBoard.getMoveSeq());
+                }
+                Platform.runLater(() -> gameBoard.showConnectionStatus("Reconnected."));
+                return true;
+            } catch (IOException e) {
+                delay = Math.min(delay * 2, MAX_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.projectchess;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import com.example.projectchess.backend.Metrics;
+
+/**
+ * Measures board redraws: the time spent updating nodes, and the CSS and layout pass JavaFX runs
+ * for them on the next pulse. Enabled with -Dchess.frameStats=true; prints the scene's node count
+ * once shown, then averages every REPORT_INTERVAL redrawn frames. Update times also go to the
+ * "ui.redraw" histogram when metrics are enabled.
+ */
+class FrameTimer {
+    static final boolean ENABLED = Boolean.getBoolean("chess.frameStats");
+    private static final int REPORT_INTERVAL = 20;
+    private static final Metrics.Histogram REDRAW = Metrics.histogram("ui.redraw", "us");
+
+    private final String name;
+    private final Scene scene;
+    private boolean nodesCounted;
+    private long frames, squares, updateNanos, layoutNanos;
+    private long updateStart, layoutStart;
+    private boolean redrawn; // nodes were updated since the last pulse
+
+    FrameTimer(String name, Scene scene) {
+        this.name = name;
+        this.scene = scene;
+        if (ENABLED) {
+            scene.addPreLayoutPulseListener(() -> layoutStart = System.nanoTime());
+            scene.addPostLayoutPulseListener(this::pulseDone);
+        }
+    }
+
+    void beginUpdate() {
+        if (ENABLED || Metrics.ENABLED) updateStart = System.nanoTime();
+    }
+
+    void endUpdate(int squaresRedrawn) {
+        if (!ENABLED && !Metrics.ENABLED) return;
+        long nanos = System.nanoTime() - updateStart;
+        REDRAW.record(nanos / 1000);
+        if (!ENABLED) return;
+        updateNanos += nanos;
+        squares += squaresRedrawn;
+        redrawn = true;
+    }
+
+    private void pulseDone() {
+        if (!nodesCounted && scene.getWindow() != null && scene.getWindow().isShowing()) {
+            // Controls create their skin nodes on the first CSS pass, so count after it.
+            nodesCounted = true;
+            System.out.println(name + ": " + countNodes(scene.getRoot()) + " scene nodes");
+        }
+        if (!redrawn) return;
+        redrawn = false;
+        layoutNanos += System.nanoTime() - layoutStart;
+        if (++frames % REPORT_INTERVAL == 0) {
+            System.out.printf("%s: %d frames, avg update %.3f ms, avg css+layout %.3f ms, avg %.1f squares redrawn%n",
+                    name, frames, updateNanos / 1e6 / frames, layoutNanos / 1e6 / frames, (double) squares / frames);
+        }
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        if (node instanceof Parent parent) {
+            for (Node child : parent.getChildrenUnmodifiable()) {
+                count += countNodes(child);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.projectchess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+
+/**
+ * Hands messages from a network thread to the JavaFX application thread in batches. However many
+ * arrive before the application thread gets to them, only one Platform.runLater is queued, and it
+ * passes them all to the handler at once.
+ */
+class FxBatcher<T> {
+    private final ConcurrentLinkedQueue<T> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Consumer<List<T>> handler;
+
+    FxBatcher(Consumer<List<T>> handler) {
+        this.handler = handler;
+    }
+
+    // Callable from any thread; messages reach the handler in the order they were added.
+    void add(T message) {
+        queue.add(message);
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Cleared first: a message added from now on schedules another drain rather than being missed.
+        scheduled.set(false);
+        List<T> batch = new ArrayList<>();
+        T message;
+        while ((message = queue.poll()) != null) {
+            batch.add(message);
+        }
+        if (!batch.isEmpty()) handler.accept(batch);
+    }
+}
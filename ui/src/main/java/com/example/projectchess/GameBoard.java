@@ -0,0 +1,454 @@
+package com.example.projectchess;
+
+import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import com.example.projectchess.backend.ChessBoard;
+import com.example.projectchess.backend.ChessPiece;
+import com.example.projectchess.backend.Color;
+import com.example.projectchess.backend.PgnGame;
+import com.example.projectchess.backend.PgnWriter;
+import com.example.projectchess.backend.PieceType;
+import com.example.projectchess.backend.Position;
+import com.example.projectchess.backend.San;
+import com.example.projectchess.backend.Tablebase;
+
+public class GameBoard extends Application {
+    // Looked up once, like the server's; null when there is no tablebase directory.
+    private static final Tablebase TABLEBASE = Tablebase.getDefault();
+
+    private ChessBoard board;
+    // Snapshot of the board after the last move, for readers off the application thread.
+    private volatile Position position;
+    private Color currentTurn = Color.WHITE;
+    private Color myColor;
+    // Seq of the last move applied to the board; the server numbers moves from 1.
+    private volatile long moveSeq;
+    private int selectedRow = -1;
+    private int selectedCol = -1;
+    private BoardView boardView;
+    private FrameTimer frameTimer;
+    private Label statusLabel;
+    private Button localGameButton;
+    private boolean localGame;
+    private boolean dropping; // the move being made came from a drag
+    // Moves played so far, kept for PGN export.
+    private PgnGame record;
+    private AnalysisPanel analysis;
+    private ToggleButton analyzeButton;
+
+    // Networking client.
+    private ChessClient chessClient;
+    // Controls for connection.
+    private TextField serverAddressField;
+    private int serverPort; // from the optional [host] [port] arguments, as for HallView
+    private TextField colorField;
+
+    @Override
+    public void start(Stage primaryStage) {
+        List<String> args = getParameters().getRaw();
+        String host = args.size() > 0 ? args.get(0) : "localhost";
+        serverPort = args.size() > 1 ? Integer.parseInt(args.get(1)) : 5000;
+
+        board = new ChessBoard(); // Initialize board and pieces.
+        position = board.snapshot();
+        record = newRecord();
+
+        BorderPane root = new BorderPane();
+
+        // Status label displays the current turn.
+        statusLabel = new Label("Current turn: " + currentTurn);
+        statusLabel.setFont(new Font("SansSerif", 24));
+        root.setTop(statusLabel);
+        BorderPane.setMargin(statusLabel, new Insets(10));
+
+        // Build the chess board view.
+        boardView = BoardView.create();
+        boardView.setListener(new BoardView.Listener() {
+            @Override
+            public void squareClicked(int row, int col) {
+                handleSquareClick(row, col);
+            }
+
+            @Override
+            public void pieceDropped(int sRow, int sCol, int eRow, int eCol) {
+                handleDrop(sRow, sCol, eRow, eCol);
+            }
+        });
+        boardView.redraw(board, board.drainDirtySquares());
+        root.setCenter(boardView.getNode());
+
+        // Controls for networking: connect, server address, local color, and restart.
+        Button connectButton = new Button("Connect");
+        connectButton.setFont(new Font("SansSerif", 18));
+        connectButton.setOnAction(e -> connectToServer());
+
+        serverAddressField = new TextField(host);
+        serverAddressField.setPrefWidth(120);
+
+        colorField = new TextField("WHITE"); // Enter "WHITE" or "BLACK".
+        colorField.setPrefWidth(80);
+
+        Button restartButton = new Button("Restart Game");
+        restartButton.setFont(new Font("SansSerif", 18));
+        restartButton.setOnAction(e -> restartGame());
+
+        localGameButton = new Button("Local Game");
+        localGameButton.setFont(new Font("SansSerif", 18));
+        localGameButton.setOnAction(e -> {
+            localGame = true;
+            statusLabel.setText("Local 2-Player mode. Current turn: " + currentTurn);
+        });
+
+        Button savePgnButton = new Button("Save PGN");
+        savePgnButton.setFont(new Font("SansSerif", 18));
+        savePgnButton.setOnAction(e -> savePgn(primaryStage));
+
+        // Engine analysis of the current position, restarted after every move while the toggle is on.
+        analysis = new AnalysisPanel();
+        analyzeButton = new ToggleButton("Analyze");
+        analyzeButton.setFont(new Font("SansSerif", 18));
+        analyzeButton.setOnAction(e -> {
+            if (analyzeButton.isSelected()) analysis.analyze(position);
+            else analysis.stop();
+        });
+        root.setLeft(analysis.getBar());
+
+        HBox controls = new HBox(10, connectButton, localGameButton, serverAddressField,
+                new Label("My Color:"), colorField, restartButton, savePgnButton, analyzeButton);
+        controls.setPadding(new Insets(10));
+        root.setBottom(new VBox(analysis.getLines(), controls));
+
+        Scene scene = new Scene(root, 600, 650);
+        frameTimer = new FrameTimer("Board", scene);
+        primaryStage.setTitle("CHESS");
+        primaryStage.setScene(scene);
+        primaryStage.show();
+    }
+
+    @Override
+    public void stop() {
+        analysis.shutdown();
+    }
+
+    // ------------------- Connection Methods -------------------
+
+    /**
+     * Attempts to connect to the ChessServer
+     */
+    private void connectToServer() {
+        String serverAddress = serverAddressField.getText().trim();
+        try {
+            try {
+                myColor = Color.valueOf(colorField.getText().trim().toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                myColor = Color.WHITE;
+                colorField.setText("WHITE");
+            }
+            chessClient = new ChessClient(serverAddress, serverPort, this);
+            statusLabel.setText("Connected! Current turn: " + currentTurn + " | My Color: " + myColor);
+        } catch (IOException ex) {
+            statusLabel.setText("Connection failed: " + ex.getMessage());
+            ex.printStackTrace();
+        }
+    }
+
+    // Moves
+    // Handles a click on a board square.
+    private void handleSquareClick(int row, int col) {
+        // In network mode, only allow move if it's our turn and we are still connected.
+        if (!localGame && (chessClient == null || currentTurn != myColor)) {
+            return;
+        }
+        // If no piece is selected, try to select one.
+        if (selectedRow == -1 && selectedCol == -1) {
+            ChessPiece piece = board.getPiece(row, col);
+            if (piece != null && piece.getColor() == currentTurn) {
+                selectedRow = row;
+                selectedCol = col;
+                long targets = 0;
+                for (int[] move : board.getLegalMoves(row, col)) {
+                    targets |= 1L << (move[0] * 8 + move[1]);
+                }
+                boardView.showSelection(row, col, targets);
+            }
+        } else {
+            // Attempt to move the selected piece.
+            List<int[]> legalMoves = board.getLegalMoves(selectedRow, selectedCol);
+            boolean validMove = legalMoves.stream().anyMatch(move -> move[0] == row && move[1] == col);
+            if (validMove) {
+                String san = San.toSan(board, selectedRow, selectedCol, row, col, PieceType.QUEEN);
+                boolean moved = board.movePiece(selectedRow, selectedCol, row, col, currentTurn);
+                if (moved) {
+                    record.getMoves().add(san);
+                    // A dropped piece is already on its square; a clicked one slides there.
+                    if (!dropping) boardView.animateMove(selectedRow, selectedCol, row, col);
+                    // In network mode, send the move.
+                    if (!localGame && chessClient != null) {
+                        String moveMessage = "MOVE " + selectedRow + "," + selectedCol + " " + row + "," + col;
+                        chessClient.sendMove(moveMessage);
+                    }
+                    moveSeq++;
+                    currentTurn = (currentTurn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+                    checkGameState();
+                    positionChanged();
+                }
+            }
+            // Clear selection and refresh board.
+            clearSelection();
+            updateBoard();
+        }
+    }
+
+    // Handles a piece dragged from one square to another: select it, then move it.
+    private void handleDrop(int sRow, int sCol, int eRow, int eCol) {
+        if (selectedRow != sRow || selectedCol != sCol) {
+            clearSelection();
+            handleSquareClick(sRow, sCol);
+        }
+        if (selectedRow == -1) return;
+        dropping = true;
+        try {
+            handleSquareClick(eRow, eCol);
+        } finally {
+            dropping = false;
+        }
+    }
+
+    // The server reaches the same verdicts on its own board and sends GAMEOVER to both players.
+    private void checkGameState() {
+        Tablebase.Result endgame = TABLEBASE != null ? TABLEBASE.probe(board) : null;
+        if (!board.hasLegalMoves(currentTurn)) {
+            if (board.isKingInCheck(currentTurn)) {
+                statusLabel.setText("Checkmate! " + (currentTurn == Color.WHITE ? "Black wins!" : "White wins!"));
+                record.setResult(currentTurn == Color.WHITE ? "0-1" : "1-0");
+            } else {
+                statusLabel.setText("Stalemate! It's a draw!");
+                record.setResult("1/2-1/2");
+            }
+            updateBoard();
+            disableBoard();
+        } else if (endgame != null && endgame.getOutcome() == Tablebase.Outcome.DRAW) {
+            // Covers bare kings too; neither side can force mate, so the game is adjudicated.
+            statusLabel.setText("Draw! Neither side can force mate.");
+            record.setResult("1/2-1/2");
+            updateBoard();
+            disableBoard();
+        } else if (board.isKingInCheck(currentTurn)) {
+            statusLabel.setText("Check! Current turn: " + currentTurn + endgameStatus(endgame));
+        } else {
+            statusLabel.setText("Current turn: " + currentTurn + endgameStatus(endgame));
+        }
+    }
+
+    // Status suffix for a won tablebase position, e.g. " | White mates in 12".
+    private String endgameStatus(Tablebase.Result endgame) {
+        if (endgame == null || endgame.getOutcome() == Tablebase.Outcome.DRAW) return "";
+        Color other = (currentTurn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        Color winner = endgame.getOutcome() == Tablebase.Outcome.WIN ? currentTurn : other;
+        return " | " + winner + " mates in " + endgame.getMovesToMate();
+    }
+
+
+    // Publishes the new position and restarts the analysis on it; the previous search is cancelled, not waited for.
+    private void positionChanged() {
+        position = board.snapshot();
+        if (analyzeButton.isSelected()) analysis.analyze(position);
+    }
+
+    private void clearSelection() {
+        selectedRow = -1;
+        selectedCol = -1;
+        boardView.clearSelection();
+    }
+
+    // Redraws the squares the board reports as changed.
+    private void updateBoard() {
+        long dirty = board.drainDirtySquares();
+        frameTimer.beginUpdate();
+        boardView.redraw(board, dirty);
+        frameTimer.endUpdate(Long.bitCount(dirty));
+    }
+
+    private void disableBoard() {
+        boardView.setDisabled(true);
+    }
+
+    private void restartGame() {
+        board = new ChessBoard();
+        currentTurn = Color.WHITE;
+        moveSeq = 0;
+        record = newRecord();
+        clearSelection();
+        localGame = false;
+        statusLabel.setText("Current turn: " + currentTurn);
+        boardView.setDisabled(false);
+        updateBoard();
+        positionChanged();
+    }
+
+    private PgnGame newRecord() {
+        PgnGame game = new PgnGame();
+        game.setTag("Event", "ChessApp game");
+        game.setTag("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+        return game;
+    }
+
+    /**
+     * Saves the moves played so far as a PGN file chosen by the user.
+     */
+    private void savePgn(Stage stage) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Save game");
+        chooser.setInitialFileName("game.pgn");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PGN files", "*.pgn"));
+        File file = chooser.showSaveDialog(stage);
+        if (file == null) return;
+        try (Writer out = Files.newBufferedWriter(file.toPath())) {
+            PgnWriter.write(record, out);
+            statusLabel.setText("Saved " + file.getName() + ". Current turn: " + currentTurn);
+        } catch (IOException ex) {
+            statusLabel.setText("Save failed: " + ex.getMessage());
+        }
+    }
+
+    // The position after the last move; safe to call from any thread.
+    public Position getPosition() {
+        return position;
+    }
+
+    // Called from the network thread when asking the server to resume the game.
+    public long getMoveSeq() {
+        return moveSeq;
+    }
+
+    public void showConnectionStatus(String status) {
+        statusLabel.setText(status + " Current turn: " + currentTurn);
+    }
+
+    // The connection is gone for good; the board stays as it was but no longer plays.
+    public void showConnectionError(String error) {
+        chessClient = null;
+        statusLabel.setText("Disconnected: " + error + ".");
+    }
+
+    public void processIncomingMove(String message) {
+        if (message.startsWith("MOVE")) {
+            // Parse and apply the move: "MOVE sRow,sCol eRow,eCol seq".
+            String[] parts = message.split(" ");
+            if (parts.length == 3 || parts.length == 4) {
+                try {
+                    String[] src = parts[1].split(",");
+                    String[] dst = parts[2].split(",");
+                    int sRow = Integer.parseInt(src[0]);
+                    int sCol = Integer.parseInt(src[1]);
+                    int eRow = Integer.parseInt(dst[0]);
+                    int eCol = Integer.parseInt(dst[1]);
+                    long seq = parts.length == 4 ? Long.parseLong(parts[3]) : moveSeq + 1;
+                    // Moves we already have (e.g. resent after a reconnect) are skipped.
+                    if (seq <= moveSeq) {
+                        return;
+                    }
+                    // A move that is not legal here means our board has drifted from the server's;
+                    // it is not applied, so the record never holds a move it cannot write.
+                    ChessPiece piece = board.getPiece(sRow, sCol);
+                    if (piece == null || piece.getColor() != currentTurn
+                            || board.getLegalMoves(sRow, sCol).stream().noneMatch(m -> m[0] == eRow && m[1] == eCol)) {
+                        System.err.println("Illegal move from server: " + message);
+                        return;
+                    }
+                    String san = San.toSan(board, sRow, sCol, eRow, eCol, PieceType.QUEEN);
+                    boolean moved = board.movePiece(sRow, sCol, eRow, eCol, currentTurn);
+                    if (moved) {
+                        record.getMoves().add(san);
+                        moveSeq = seq;
+                        currentTurn = (currentTurn == Color.WHITE) ? Color.BLACK : Color.WHITE;
+                        boardView.animateMove(sRow, sCol, eRow, eCol);
+                        updateBoard();
+                        checkGameState();
+                        positionChanged();
+                    }
+                } catch (NumberFormatException ex) {
+                    System.err.println("Invalid MOVE format: " + message);
+                }
+            }
+        } else if (message.startsWith("SNAPSHOT")) {
+            // "SNAPSHOT seq fen": replaces the board with the server's position.
+            String[] parts = message.split(" ", 3);
+            if (parts.length == 3) {
+                try {
+                    board.loadFen(parts[2]);
+                    moveSeq = Long.parseLong(parts[1]);
+                    // The moves before the snapshot are gone, so the record restarts from its position.
+                    record = newRecord();
+                    if (moveSeq > 0) {
+                        record.setTag("SetUp", "1");
+                        record.setTag("FEN", parts[2]);
+                    }
+                    currentTurn = board.getSideToMove();
+                    clearSelection();
+                    boardView.setDisabled(false);
+                    updateBoard();
+                    checkGameState();
+                    positionChanged();
+                } catch (IllegalArgumentException ex) {
+                    System.err.println("Invalid SNAPSHOT: " + message);
+                }
+            }
+        } else if (message.startsWith("GAMEOVER")) {
+            String[] parts = message.split(" ");
+            if (parts.length == 2) {
+                String result = parts[1]; // "WHITE", "BLACK", or "DRAW"
+                switch (result) {
+                    case "WHITE" -> record.setResult("1-0");
+                    case "BLACK" -> record.setResult("0-1");
+                    case "DRAW" -> record.setResult("1/2-1/2");
+                    default -> {
+                        return;
+                    }
+                }
+                statusLabel.setText(gameOverStatus(result));
+                updateBoard();
+                disableBoard();
+            }
+        }
+    }
+
+    // The server sends only the result; the reason is read off the board, which holds the final position.
+    private String gameOverStatus(String result) {
+        boolean noMoves = !board.hasLegalMoves(currentTurn);
+        if (result.equals("DRAW")) {
+            if (noMoves) return "Stalemate! It's a draw!";
+            Tablebase.Result endgame = TABLEBASE != null ? TABLEBASE.probe(board) : null;
+            if (endgame != null && endgame.getOutcome() == Tablebase.Outcome.DRAW) {
+                return "Draw! Neither side can force mate.";
+            }
+            return "Draw claimed under the fifty-move rule.";
+        }
+        String winner = result.equals("WHITE") ? "White" : "Black";
+        if (noMoves && board.isKingInCheck(currentTurn)) return "Checkmate! " + winner + " wins!";
+        // Only the side to move may resign.
+        return (currentTurn == Color.WHITE ? "White" : "Black") + " resigned. " + winner + " wins!";
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
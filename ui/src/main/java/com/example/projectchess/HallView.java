@@ -0,0 +1,189 @@
+package com.example.projectchess;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.TilePane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Font;
+import javafx.stage.Stage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.example.projectchess.backend.ChessBoard;
+
+/**
+ * Watches every game on a server at once, e.g. a tournament hall: one small board per game,
+ * tiled, all fed by a single "SPECTATE ALL" connection. Messages are applied in batches, at most
+ * once per pulse, and each board only repaints the squares that changed.
+ *
+ * Run with: java com.example.projectchess.HallView [host] [port]
+ */
+public class HallView extends Application {
+    private static final double TILE_SQUARE_SIZE = 24;
+
+    private final Map<Long, Tile> tiles = new HashMap<>();
+    private TilePane tilePane;
+    private Label statusLabel;
+    private FrameTimer frameTimer;
+    private volatile Socket socket;
+
+    @Override
+    public void start(Stage stage) {
+        List<String> args = getParameters().getRaw();
+        String host = args.size() > 0 ? args.get(0) : "localhost";
+        int port = args.size() > 1 ? Integer.parseInt(args.get(1)) : 5000;
+
+        statusLabel = new Label("Connecting to " + host + "...");
+        statusLabel.setFont(new Font("SansSerif", 18));
+        tilePane = new TilePane(8, 8);
+        tilePane.setPadding(new Insets(8));
+        ScrollPane scroll = new ScrollPane(tilePane);
+        scroll.setFitToWidth(true);
+
+        BorderPane root = new BorderPane();
+        root.setTop(statusLabel);
+        BorderPane.setMargin(statusLabel, new Insets(10));
+        root.setCenter(scroll);
+
+        Scene scene = new Scene(root, 1280, 800);
+        frameTimer = new FrameTimer("Hall", scene);
+        stage.setTitle("CHESS - all games");
+        stage.setScene(scene);
+        stage.show();
+
+        Thread listener = new Thread(() -> listen(host, port), "hall-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() throws IOException {
+        if (socket != null) socket.close();
+    }
+
+    private void listen(String host, int port) {
+        FxBatcher<String> incoming = new FxBatcher<>(this::apply);
+        try (Socket s = new Socket(host, port)) {
+            socket = s;
+            new PrintWriter(s.getOutputStream(), true).println("SPECTATE ALL");
+            Platform.runLater(() -> statusLabel.setText("Watching " + host));
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream()));
+            String line;
+            while ((line = in.readLine()) != null) {
+                incoming.add(line);
+            }
+            Platform.runLater(() -> statusLabel.setText("Server closed the connection."));
+        } catch (IOException ex) {
+            Platform.runLater(() -> statusLabel.setText("Connection lost: " + ex.getMessage()));
+        }
+    }
+
+    // Applies one batch of "BOARD gameId message" lines, then repaints each board it touched once.
+    private void apply(List<String> messages) {
+        frameTimer.beginUpdate();
+        List<Tile> touched = new ArrayList<>();
+        for (String line : messages) {
+            String[] parts = line.split(" ", 3);
+            if (parts.length < 3 || !parts[0].equals("BOARD")) continue;
+            long gameId;
+            try {
+                gameId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException ex) {
+                continue;
+            }
+            if (parts[2].equals("END")) {
+                Tile tile = tiles.remove(gameId);
+                if (tile != null) tilePane.getChildren().remove(tile.node);
+                continue;
+            }
+            Tile tile = tiles.computeIfAbsent(gameId, this::addTile);
+            tile.apply(parts[2]);
+            if (!tile.touched) {
+                tile.touched = true;
+                touched.add(tile);
+            }
+        }
+        int squares = 0;
+        for (Tile tile : touched) {
+            tile.touched = false;
+            if (tiles.get(tile.gameId) == tile) squares += tile.redraw();
+        }
+        statusLabel.setText(tiles.size() + " games in progress");
+        frameTimer.endUpdate(squares);
+    }
+
+    private Tile addTile(long gameId) {
+        Tile tile = new Tile(gameId);
+        tilePane.getChildren().add(tile.node);
+        return tile;
+    }
+
+    /**
+     * One game: its board, a small non-interactive canvas and a caption.
+     */
+    private static final class Tile {
+        final long gameId;
+        final ChessBoard board = new ChessBoard();
+        final CanvasBoardView view = new CanvasBoardView(TILE_SQUARE_SIZE);
+        final Label caption = new Label();
+        final VBox node;
+        long seq;
+        boolean touched;
+
+        Tile(long gameId) {
+            this.gameId = gameId;
+            view.getNode().setMouseTransparent(true);
+            caption.setText("Game " + gameId);
+            node = new VBox(2, view.getNode(), caption);
+        }
+
+        void apply(String message) {
+            String[] parts = message.split(" ");
+            try {
+                switch (parts[0]) {
+                    case "SNAPSHOT" -> {
+                        // "SNAPSHOT seq fen"
+                        board.loadFen(message.split(" ", 3)[2]);
+                        seq = Long.parseLong(parts[1]);
+                    }
+                    case "MOVE" -> {
+                        // "MOVE sRow,sCol eRow,eCol seq"; moves already applied are skipped.
+                        long moveSeq = Long.parseLong(parts[3]);
+                        if (moveSeq <= seq) return;
+                        String[] src = parts[1].split(","), dst = parts[2].split(",");
+                        board.movePiece(Integer.parseInt(src[0]), Integer.parseInt(src[1]),
+                                Integer.parseInt(dst[0]), Integer.parseInt(dst[1]), board.getSideToMove());
+                        seq = moveSeq;
+                    }
+                    case "GAMEOVER" -> caption.setText("Game " + gameId + ": "
+                            + (parts.length > 1 ? parts[1] : "over"));
+                    default -> {
+                    }
+                }
+            } catch (RuntimeException ex) {
+                System.err.println("Invalid message for game " + gameId + ": " + message);
+            }
+        }
+
+        int redraw() {
+            long dirty = board.drainDirtySquares();
+            view.redraw(board, dirty);
+            return Long.bitCount(dirty);
+        }
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
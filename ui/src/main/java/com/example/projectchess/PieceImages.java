@@ -0,0 +1,40 @@
+package com.example.projectchess;
+
+import javafx.scene.image.Image;
+import com.example.projectchess.backend.ChessPiece;
+import com.example.projectchess.backend.Color;
+import com.example.projectchess.backend.PieceType;
+
+/**
+ * The 12 piece images, decoded once at the display size and shared by every board view.
+ * Only used on the JavaFX application thread.
+ */
+final class PieceImages {
+    static final double SIZE = 55;
+    // By [color ordinal][type ordinal].
+    private static final Image[][] IMAGES = new Image[Color.values().length][PieceType.values().length];
+
+    private PieceImages() {
+    }
+
+    // Returns the cached image for a piece, decoding it on first use.
+    static Image get(ChessPiece piece) {
+        Image[] images = IMAGES[piece.getColor().ordinal()];
+        Image image = images[piece.getType().ordinal()];
+        if (image == null) {
+            String filename = (piece.getColor() == Color.WHITE ? "white" : "black") + switch (piece.getType()) {
+                case ROOK -> "Rook";
+                case QUEEN -> "Queen";
+                case PAWN -> "Pawn";
+                case KNIGHT -> "Knight";
+                case BISHOP -> "Bishop";
+                case KING -> "King";
+            } + ".png";
+            // Загружаем изображение из папки resources/images/, сразу в нужном размере
+            image = new Image(PieceImages.class.getResource("/images/" + filename).toExternalForm(),
+                    SIZE, SIZE, true, true);
+            images[piece.getType().ordinal()] = image;
+        }
+        return image;
+    }
+}
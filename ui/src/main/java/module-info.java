@@ -1,8 +1,9 @@
 module com.example.projectchess {
     requires javafx.controls;
     requires javafx.fxml;
+    requires com.example.projectchess.backend;
 
 
     opens com.example.projectchess to javafx.fxml;
     exports com.example.projectchess;
-}
\ No newline at end of file
+}